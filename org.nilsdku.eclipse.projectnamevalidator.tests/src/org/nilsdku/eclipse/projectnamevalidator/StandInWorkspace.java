@@ -0,0 +1,325 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Рабочая область в памяти для тестов, передаваемая
+ * ChangedNameValidator через конструктор вместо рабочей
+ * области платформы. Проекты-заменители существуют, открыты
+ * и не имеют постоянных свойств, их маркеры хранятся в
+ * памяти, а операции над рабочей областью выполняются сразу
+ * в вызывающем потоке; методы, не используемые проверкой,
+ * возвращают значения по умолчанию. Обращений к диску и
+ * дереву ресурсов не выполняется, поэтому время проверки
+ * определяется только кодом плагина.
+ */
+public class StandInWorkspace
+{
+	private final IWorkspace m_workspace;
+	
+	private final IWorkspaceRoot m_root;
+	
+	private final Map<String, IProject> m_projects = new LinkedHashMap<String, IProject>();
+	
+	/**
+	 * Конструктор класса StandInWorkspace.
+	 */
+	public StandInWorkspace ()
+	{
+		m_workspace = createProxy(IWorkspace.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke (Object a_proxy, Method a_method, Object[] a_arguments) throws CoreException
+			{
+				switch (a_method.getName())
+				{
+					case "getRoot":
+						return m_root;
+					case "run":
+						if (a_arguments[0] instanceof IWorkspaceRunnable)
+						{
+							Object monitor = a_arguments[a_arguments.length - 1];
+							((IWorkspaceRunnable)a_arguments[0]).run((monitor instanceof IProgressMonitor) ?
+																	 (IProgressMonitor)monitor : null);
+						}
+						return null;
+					default:
+						return handleDefault(a_proxy, a_method, a_arguments);
+				}
+			}
+		});
+		m_root = createProxy(IWorkspaceRoot.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke (Object a_proxy, Method a_method, Object[] a_arguments)
+			{
+				switch (a_method.getName())
+				{
+					case "getProjects":
+						return m_projects.values().toArray(new IProject[m_projects.size()]);
+					case "getProject":
+						return m_projects.get(a_arguments[0]);
+					case "getWorkspace":
+						return m_workspace;
+					case "findMarkers":
+						return new IMarker[0];
+					default:
+						return handleDefault(a_proxy, a_method, a_arguments);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * @return рабочая область-заменитель
+	 */
+	public IWorkspace getWorkspace ()
+	{
+		return m_workspace;
+	}
+	
+	/**
+	 * Добавляет проект, папка которого расположена в
+	 * локальной файловой системе.
+	 * @param a_name
+	 * 		  Имя проекта. NotNull
+	 * @param a_location
+	 * 		  Расположение папки проекта. NotNull
+	 * @return проект-заменитель
+	 */
+	public IProject addProject (String a_name, String a_location)
+	{
+		IPath location = Path.fromOSString(a_location);
+		return addProject(a_name, location, URI.create("file:" + location.makeAbsolute().toString()));
+	}
+	
+	/**
+	 * Добавляет проект, папка которого расположена на
+	 * файловой системе EFS, отличной от локальной, и
+	 * поэтому не имеет локального расположения.
+	 * @param a_name
+	 * 		  Имя проекта. NotNull
+	 * @param a_locationUri
+	 * 		  Расположение папки проекта. NotNull
+	 * @return проект-заменитель
+	 */
+	public IProject addProject (String a_name, URI a_locationUri)
+	{
+		return addProject(a_name, null, a_locationUri);
+	}
+	
+	/**
+	 * @param a_name
+	 * 		  Имя проекта
+	 * @param a_location
+	 * 		  Локальное расположение или null
+	 * @param a_locationUri
+	 * 		  Расположение
+	 * @return проект-заменитель
+	 */
+	private IProject addProject (String a_name, IPath a_location, URI a_locationUri)
+	{
+		List<IMarker> markers = new CopyOnWriteArrayList<IMarker>();
+		IProject project = createProxy(IProject.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke (Object a_proxy, Method a_method, Object[] a_arguments)
+			{
+				switch (a_method.getName())
+				{
+					case "getName":
+						return a_name;
+					case "getLocation":
+						return a_location;
+					case "getLocationURI":
+						return a_locationUri;
+					case "getFullPath":
+						return Path.ROOT.append(a_name);
+					case "getType":
+						return Integer.valueOf(IResource.PROJECT);
+					case "exists":
+					case "isOpen":
+					case "isAccessible":
+						return Boolean.TRUE;
+					case "getProject":
+						return a_proxy;
+					case "contains":
+					case "isConflicting":
+						/*
+						 * Менеджер заданий требует рефлексивности
+						 * правил планирования:*/
+						return Boolean.valueOf(a_proxy == a_arguments[0]);
+					case "getWorkspace":
+						return m_workspace;
+					case "createMarker":
+						IMarker marker = createMarker((IResource)a_proxy, (String)a_arguments[0], markers);
+						markers.add(marker);
+						return marker;
+					case "findMarkers":
+						List<IMarker> found = new ArrayList<IMarker>();
+						for (IMarker existing : markers)
+						{
+							if (a_arguments[0] == null || a_arguments[0].equals(getMarkerType(existing)))
+							{
+								found.add(existing);
+							}
+						}
+						return found.toArray(new IMarker[found.size()]);
+					case "deleteMarkers":
+						for (IMarker existing : markers)
+						{
+							if (a_arguments[0] == null || a_arguments[0].equals(getMarkerType(existing)))
+							{
+								markers.remove(existing);
+							}
+						}
+						return null;
+					default:
+						return handleDefault(a_proxy, a_method, a_arguments);
+				}
+			}
+		});
+		m_projects.put(a_name, project);
+		return project;
+	}
+	
+	/**
+	 * @param a_resource
+	 * 		  Ресурс маркера
+	 * @param a_type
+	 * 		  Тип маркера
+	 * @param a_markers
+	 * 		  Маркеры ресурса, из которых маркер удаляется
+	 * 		  методом delete
+	 * @return маркер-заменитель, атрибуты которого хранятся
+	 * в памяти
+	 */
+	private static IMarker createMarker (IResource a_resource, String a_type, List<IMarker> a_markers)
+	{
+		Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+		return createProxy(IMarker.class, new InvocationHandler()
+		{
+			@Override
+			public Object invoke (Object a_proxy, Method a_method, Object[] a_arguments)
+			{
+				switch (a_method.getName())
+				{
+					case "getType":
+						return a_type;
+					case "getResource":
+						return a_resource;
+					case "exists":
+						return Boolean.valueOf(a_markers.contains(a_proxy));
+					case "delete":
+						a_markers.remove(a_proxy);
+						return null;
+					case "setAttribute":
+						if (a_arguments[1] == null) attributes.remove(a_arguments[0]);
+						else attributes.put((String)a_arguments[0], a_arguments[1]);
+						return null;
+					case "setAttributes":
+						if (a_arguments.length == 1) return null;
+						String[] names = (String[])a_arguments[0];
+						Object[] values = (Object[])a_arguments[1];
+						for (int i = 0; i < names.length; i++)
+						{
+							if (values[i] == null) attributes.remove(names[i]);
+							else attributes.put(names[i], values[i]);
+						}
+						return null;
+					case "getAttribute":
+						Object value = attributes.get(a_arguments[0]);
+						if (a_arguments.length == 1 || value != null) return value;
+						return a_arguments[1];
+					case "getAttributes":
+						return (a_arguments == null) ? new HashMap<String, Object>(attributes) : null;
+					default:
+						return handleDefault(a_proxy, a_method, a_arguments);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * @param a_marker
+	 * 		  Маркер-заменитель
+	 * @return тип маркера
+	 */
+	private static String getMarkerType (IMarker a_marker)
+	{
+		try
+		{
+			return a_marker.getType();
+		}
+		catch (CoreException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param a_type
+	 * 		  Интерфейс ресурса
+	 * @param a_handler
+	 * 		  Обработчик вызовов
+	 * @return заменитель, реализующий интерфейс a_type
+	 */
+	private static <T> T createProxy (Class<T> a_type, InvocationHandler a_handler)
+	{
+		return a_type.cast(Proxy.newProxyInstance(StandInWorkspace.class.getClassLoader(),
+												  new Class<?>[] {a_type}, a_handler));
+	}
+	
+	/**
+	 * Обрабатывает методы Object по тождественности
+	 * заменителя и возвращает для остальных методов значение
+	 * по умолчанию их типа.
+	 * @param a_proxy
+	 * 		  Заменитель
+	 * @param a_method
+	 * 		  Метод
+	 * @param a_arguments
+	 * 		  Аргументы
+	 * @return результат вызова
+	 */
+	private static Object handleDefault (Object a_proxy, Method a_method, Object[] a_arguments)
+	{
+		switch (a_method.getName())
+		{
+			case "equals":
+				return Boolean.valueOf(a_proxy == a_arguments[0]);
+			case "hashCode":
+				return Integer.valueOf(System.identityHashCode(a_proxy));
+			case "toString":
+				return "StandIn@" + Integer.toHexString(System.identityHashCode(a_proxy));
+			default:
+				break;
+		}
+		Class<?> type = a_method.getReturnType();
+		if (type == boolean.class) return Boolean.FALSE;
+		if (type == int.class) return Integer.valueOf(0);
+		if (type == long.class) return Long.valueOf(0);
+		return null;
+	}
+}
@@ -0,0 +1,388 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.nilsdku.eclipse.projectnamevalidator.location.LocationResolver;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.MetricsReport;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.nilsdku.eclipse.projectnamevalidator.property.IgnoreListStore;
+import org.nilsdku.eclipse.projectnamevalidator.property.RenameIgnoringProperty;
+import org.nilsdku.eclipse.projectnamevalidator.rule.ExactNameRule;
+import org.nilsdku.eclipse.projectnamevalidator.rule.PathGlob;
+import org.nilsdku.eclipse.projectnamevalidator.rule.ProjectNameRule;
+import org.nilsdku.eclipse.projectnamevalidator.rule.ProjectNameRuleSet;
+import org.nilsdku.eclipse.projectnamevalidator.snapshot.ValidationSnapshot;
+
+/**
+ * Тест производительности проверки имён проектов на
+ * рабочей области-заменителе StandInWorkspace, переданной
+ * ChangedNameValidator через конструктор. Дерево ресурсов и
+ * диск не используются, поэтому измеряется только код
+ * плагина. Тест выполняется для каждого сочетания
+ * количества проектов (свойство bench.sizes), доли
+ * проектов с несовпадающими именами (bench.mismatchRatios)
+ * и доли проектов в исключениях (bench.ignoredRatios) и
+ * измеряет hasProblemName, validateExistingProjectNames,
+ * RenameIgnoringProperty.getValue и
+ * ProblemNameMarkerManager.findMarker. Если задано
+ * свойство bench.report, результат каждого измерения
+ * дописывается в указанный файл строкой JSON вместе с
+ * отчётом MetricsReport для сравнения сборок. Проверка
+ * hasProblemName завершается ошибкой, если среднее время
+ * превышает границу bench.maxNanosPerProject.
+ */
+@RunWith(Parameterized.class)
+public class ValidationBenchmarkTest
+{
+	private static final int WARMUP_ROUND_COUNT = Integer.getInteger("bench.warmupRounds", 5);
+	
+	private static final int ROUND_COUNT = Integer.getInteger("bench.rounds", 20);
+	
+	/**
+	 * Количество измеряемых запусков задания проверки
+	 * существующих проектов.
+	 */
+	private static final int JOB_ROUND_COUNT = Integer.getInteger("bench.jobRounds", 3);
+	
+	private static final long MAX_NANOS_PER_PROJECT = Long.getLong("bench.maxNanosPerProject", 20000);
+	
+	private static final String REPORT_FILE = System.getProperty("bench.report");
+	
+	private final int m_projectCount;
+	
+	private final double m_mismatchRatio;
+	
+	private final double m_ignoredRatio;
+	
+	private StandInWorkspace m_workspace;
+	
+	private List<IProject> m_projects = new ArrayList<IProject>();
+	
+	private ChangedNameValidator m_validator;
+	
+	private int m_expectedMismatches;
+	
+	private int m_ignoredCount;
+	
+	/**
+	 * Конструктор класса ValidationBenchmarkTest.
+	 * @param a_projectCount
+	 * 		  Количество проектов
+	 * @param a_mismatchRatio
+	 * 		  Доля проектов, находящихся в папке с другим именем
+	 * @param a_ignoredRatio
+	 * 		  Доля проектов, занесённых в исключения
+	 */
+	public ValidationBenchmarkTest (int a_projectCount, double a_mismatchRatio, double a_ignoredRatio)
+	{
+		m_projectCount = a_projectCount;
+		m_mismatchRatio = a_mismatchRatio;
+		m_ignoredRatio = a_ignoredRatio;
+	}
+	
+	/**
+	 * @return все сочетания количества проектов, доли
+	 * несовпадений и доли исключений
+	 */
+	@Parameters(name = "{0} projects, {1} mismatched, {2} ignored")
+	public static Collection<Object[]> getParameters ()
+	{
+		List<Object[]> parameters = new ArrayList<Object[]>();
+		for (String size : System.getProperty("bench.sizes", "100,1000,10000,50000").split(","))
+		{
+			for (String mismatchRatio : System.getProperty("bench.mismatchRatios", "0,0.1,0.5").split(","))
+			{
+				for (String ignoredRatio : System.getProperty("bench.ignoredRatios", "0,0.1").split(","))
+				{
+					parameters.add(new Object[] {Integer.valueOf(size.trim()), Double.valueOf(mismatchRatio.trim()),
+												 Double.valueOf(ignoredRatio.trim())});
+				}
+			}
+		}
+		return parameters;
+	}
+	
+	@Before
+	public void setUp () throws CoreException
+	{
+		m_workspace = new StandInWorkspace();
+		Map<IProject, Boolean> ignored = new LinkedHashMap<IProject, Boolean>();
+		for (int i = 0; i < m_projectCount; i++)
+		{
+			String name = "bench" + i;
+			boolean mismatch = isSelected(i, m_mismatchRatio);
+			String folderName = mismatch ? "folder" + i : name;
+			IProject project = m_workspace.addProject(name, "/bench/" + i + "/" + folderName);
+			m_projects.add(project);
+			if (isSelected(i, m_ignoredRatio)) ignored.put(project, Boolean.TRUE);
+			else if (mismatch) m_expectedMismatches++;
+		}
+		m_ignoredCount = ignored.size();
+		IgnoreListStore.getInstance(m_workspace.getWorkspace()).setAll(ignored);
+		ProjectNameRuleSet rules = new ProjectNameRuleSet(Collections.<ProjectNameRule>singletonList(new ExactNameRule()),
+														  Collections.<PathGlob>emptyList(), "exact");
+		m_validator = new ChangedNameValidator(m_workspace.getWorkspace(), rules, LocationResolver.getDefault());
+		ValidationMetrics.getInstance().setEnabled(true);
+	}
+	
+	@After
+	public void tearDown () throws CoreException
+	{
+		ValidationMetrics.getInstance().setEnabled(false);
+		ValidationMetrics.getInstance().reset();
+		clearSnapshot();
+		/*
+		 * Узел настроек рабочих областей-заменителей общий,
+		 * поэтому исключения проектов-заменителей удаляются:*/
+		IgnoreListStore store = IgnoreListStore.getInstance(m_workspace.getWorkspace());
+		store.updateNames(Collections.<IProject, IProject>emptyMap(), m_projects);
+		store.load();
+	}
+	
+	@Test
+	public void testHasProblemNameThroughput () throws Exception
+	{
+		long nanosPerProject = measure("hasProblemName", WARMUP_ROUND_COUNT, ROUND_COUNT, new BenchmarkRound()
+		{
+			@Override
+			int run ()
+			{
+				int mismatches = 0;
+				for (IProject project : m_projects)
+				{
+					if (m_validator.hasProblemName(project)) mismatches++;
+				}
+				return mismatches;
+			}
+		}, m_expectedMismatches);
+		assertTrue(nanosPerProject + " ns per project", nanosPerProject <= MAX_NANOS_PER_PROJECT);
+	}
+	
+	@Test
+	public void testValidateExistingProjectNamesThroughput () throws Exception
+	{
+		measure("validateExistingProjectNames", 1, JOB_ROUND_COUNT, new BenchmarkRound()
+		{
+			@Override
+			void prepare ()
+			{
+				/*
+				 * Без снимка задание проверяет все проекты, а не
+				 * только изменившиеся с предыдущего запуска:*/
+				clearSnapshot();
+			}
+			
+			@Override
+			int run () throws Exception
+			{
+				m_validator.validateExistingProjectNames().join();
+				return 0;
+			}
+			
+			@Override
+			int getResult (int a_runResult) throws CoreException
+			{
+				return countMarkers();
+			}
+		}, m_expectedMismatches);
+	}
+	
+	@Test
+	public void testRenameIgnoringPropertyThroughput () throws Exception
+	{
+		measure("RenameIgnoringProperty.getValue", WARMUP_ROUND_COUNT, ROUND_COUNT, new BenchmarkRound()
+		{
+			@Override
+			int run () throws CoreException
+			{
+				int ignored = 0;
+				for (IProject project : m_projects)
+				{
+					if (new RenameIgnoringProperty(project).getValue()) ignored++;
+				}
+				return ignored;
+			}
+		}, m_ignoredCount);
+	}
+	
+	@Test
+	public void testFindMarkerThroughput () throws Exception
+	{
+		clearSnapshot();
+		m_validator.validateExistingProjectNames().join();
+		measure("findMarker", WARMUP_ROUND_COUNT, ROUND_COUNT, new BenchmarkRound()
+		{
+			@Override
+			int run () throws CoreException
+			{
+				return countMarkers();
+			}
+		}, m_expectedMismatches);
+	}
+	
+	/**
+	 * Выполняет разогревочные и измеряемые проходы, проверяет
+	 * результат каждого измеряемого прохода и записывает
+	 * среднее время обработки одного проекта в отчёт.
+	 * Метрики плагина учитывают только измеряемые проходы.
+	 * @param a_operation
+	 * 		  Имя измеряемой операции
+	 * @param a_warmupRounds
+	 * 		  Количество разогревочных проходов
+	 * @param a_rounds
+	 * 		  Количество измеряемых проходов
+	 * @param a_round
+	 * 		  Проход по всем проектам
+	 * @param a_expectedResult
+	 * 		  Ожидаемый результат прохода
+	 * @return среднее время обработки одного проекта в
+	 * наносекундах
+	 * @throws Exception
+	 */
+	private long measure (String a_operation, int a_warmupRounds, int a_rounds, BenchmarkRound a_round,
+						  int a_expectedResult) throws Exception
+	{
+		for (int i = 0; i < a_warmupRounds; i++)
+		{
+			a_round.prepare();
+			a_round.run();
+		}
+		ValidationMetrics.getInstance().reset();
+		long elapsed = 0;
+		for (int i = 0; i < a_rounds; i++)
+		{
+			a_round.prepare();
+			long startTime = System.nanoTime();
+			int result = a_round.run();
+			elapsed += System.nanoTime() - startTime;
+			assertEquals(a_operation, a_expectedResult, a_round.getResult(result));
+		}
+		long calls = (long)a_rounds * m_projectCount;
+		long nanosPerProject = elapsed / Math.max(1, calls);
+		writeResult(a_operation, calls, nanosPerProject);
+		return nanosPerProject;
+	}
+	
+	/**
+	 * Дописывает результат измерения и отчёт MetricsReport в
+	 * файл, заданный свойством bench.report, одной строкой
+	 * JSON.
+	 * @param a_operation
+	 * 		  Имя измеряемой операции
+	 * @param a_calls
+	 * 		  Количество обработанных проектов
+	 * @param a_nanosPerProject
+	 * 		  Среднее время обработки одного проекта
+	 * @throws IOException
+	 */
+	private void writeResult (String a_operation, long a_calls, long a_nanosPerProject) throws IOException
+	{
+		if (REPORT_FILE == null) return;
+		StringWriter metrics = new StringWriter();
+		new MetricsReport(ValidationMetrics.getInstance()).write(metrics);
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(REPORT_FILE, true), StandardCharsets.UTF_8))
+		{
+			writer.write("{\"benchmark\":\"" + a_operation + '"');
+			writer.write(",\"projects\":" + m_projectCount);
+			writer.write(",\"mismatchRatio\":" + m_mismatchRatio);
+			writer.write(",\"ignoredRatio\":" + m_ignoredRatio);
+			writer.write(",\"calls\":" + a_calls);
+			writer.write(",\"nanosPerProject\":" + a_nanosPerProject);
+			writer.write(",\"metrics\":" + metrics.toString().trim() + '}' + System.lineSeparator());
+		}
+	}
+	
+	/**
+	 * @return количество проектов, на которых стоит маркер
+	 * @throws CoreException
+	 */
+	private int countMarkers () throws CoreException
+	{
+		int markers = 0;
+		for (IProject project : m_projects)
+		{
+			if (ProblemNameMarkerManager.findMarker(project) != null) markers++;
+		}
+		return markers;
+	}
+	
+	/**
+	 * Удаляет результаты проверки проектов-заменителей из
+	 * снимка ValidationSnapshot.
+	 */
+	private void clearSnapshot ()
+	{
+		for (IProject project : m_projects) ValidationSnapshot.getInstance().update(project, null, false, false);
+	}
+	
+	/**
+	 * Отбирает a_ratio проектов, равномерно распределённых
+	 * по номерам.
+	 * @param a_index
+	 * 		  Номер проекта
+	 * @param a_ratio
+	 * 		  Доля отбираемых проектов
+	 * @return true, если проект отобран
+	 */
+	private static boolean isSelected (int a_index, double a_ratio)
+	{
+		return Math.floor((a_index + 1) * a_ratio) > Math.floor(a_index * a_ratio);
+	}
+	
+	/**
+	 * Один проход измерения по всем проектам.
+	 */
+	private abstract static class BenchmarkRound
+	{
+		/**
+		 * Подготавливает проход; время подготовки не
+		 * измеряется.
+		 */
+		void prepare ()
+		{
+		}
+		
+		/**
+		 * Выполняет измеряемый проход.
+		 * @return результат прохода
+		 * @throws Exception
+		 */
+		abstract int run () throws Exception;
+		
+		/**
+		 * Вычисляет результат, сверяемый с ожидаемым; время
+		 * вычисления не измеряется.
+		 * @param a_runResult
+		 * 		  Результат метода run
+		 * @return результат прохода
+		 * @throws CoreException
+		 */
+		int getResult (int a_runResult) throws CoreException
+		{
+			return a_runResult;
+		}
+	}
+}
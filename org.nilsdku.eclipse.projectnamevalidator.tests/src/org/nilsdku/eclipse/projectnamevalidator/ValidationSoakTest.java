@@ -0,0 +1,333 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.PlatformUI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nilsdku.eclipse.projectnamevalidator.job.IgnoreListUpdateJob;
+import org.nilsdku.eclipse.projectnamevalidator.job.ProjectValidationJob;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.LatencyHistogram;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.nilsdku.eclipse.projectnamevalidator.ui.ProblemNameDialog;
+import org.nilsdku.eclipse.projectnamevalidator.ui.ProblemNameDialogOpener;
+import org.nilsdku.eclipse.projectnamevalidator.ui.ProblemNamesDialog;
+
+/**
+ * Нагрузочный тест, выполняющий над рабочей областью
+ * операции, которые обрабатывает слушатель, установленный
+ * addChangedNameListener: создание большого количества
+ * проектов одной операцией, серию переименований проектов
+ * методом move и многократное закрытие и открытие
+ * проектов. Новые и переименованные проекты с
+ * несовпадающими именами вызывают показ предупреждений,
+ * которые тест закрывает без решения, поэтому учитывается и
+ * время в потоке Display. Тест проверяет, что перцентили
+ * длительности обработки события, проверки и работы в
+ * потоке Display не выходят за заданные границы, а маркеры
+ * стоят ровно на проектах с несовпадающими именами.
+ * Запускается как JUnit Plug-in Test. Размер нагрузки и
+ * границы задаются системными свойствами soak.*; если
+ * задано свойство soak.report, в указанный файл
+ * записывается отчёт MetricsReport для сравнения сборок.
+ */
+public class ValidationSoakTest
+{
+	private static final int PROJECT_COUNT = Integer.getInteger("soak.projects", 5000);
+	
+	/**
+	 * Количество переименований, каждое из которых
+	 * выполняется отдельной операцией над рабочей областью.
+	 */
+	private static final int RENAME_COUNT = Integer.getInteger("soak.renames", 1000);
+	
+	private static final int CLOSE_OPEN_ROUND_COUNT = Integer.getInteger("soak.closeOpenRounds", 10);
+	
+	private static final int CLOSE_OPEN_PROJECT_COUNT = Integer.getInteger("soak.closeOpenProjects", 100);
+	
+	/**
+	 * Каждый MISMATCH_PERIOD-й проект создаётся в папке с
+	 * другим именем.
+	 */
+	private static final int MISMATCH_PERIOD = 10;
+	
+	private static final long MAX_LISTENER_P99_MICROS = Long.getLong("soak.maxListenerP99Micros", 2000);
+	
+	private static final long MAX_VALIDATION_P99_MICROS = Long.getLong("soak.maxValidationP99Micros", 5000);
+	
+	private static final long MAX_UI_THREAD_P99_MICROS = Long.getLong("soak.maxUiThreadP99Micros", 100000);
+	
+	private static final long TIMEOUT_SECONDS = Long.getLong("soak.timeoutSeconds", 600);
+	
+	/**
+	 * Время (в миллисекундах) без заданий проверки, после
+	 * которого проверка считается завершённой. Больше
+	 * задержки, с которой ProblemNameDialogOpener
+	 * показывает предупреждения.
+	 */
+	private static final long QUIET_PERIOD = 2000;
+	
+	/**
+	 * Интервал (в миллисекундах), с которым закрываются
+	 * показанные предупреждения.
+	 */
+	private static final int DIALOG_CLOSE_INTERVAL = 100;
+	
+	private IWorkspace m_workspace = ResourcesPlugin.getWorkspace();
+	
+	private File m_root;
+	
+	private ChangedNameValidator m_validator;
+	
+	/**
+	 * Текущие проекты теста; при переименовании проект
+	 * заменяется новым.
+	 */
+	private List<IProject> m_projects = new ArrayList<IProject>();
+	
+	private volatile boolean m_closingDialogs;
+	
+	@Before
+	public void setUp () throws IOException
+	{
+		ValidationMetrics.getInstance().reset();
+		ValidationMetrics.getInstance().setEnabled(true);
+		m_root = Files.createTempDirectory("projectnamevalidator-soak").toFile();
+		m_validator = new ChangedNameValidator(m_workspace);
+		m_validator.setWarningDialogOpener(new ProblemNameDialogOpener(m_validator));
+		m_validator.addChangedNameListener();
+		startDialogCloser();
+	}
+	
+	@After
+	public void tearDown () throws CoreException, InterruptedException
+	{
+		m_validator.removeChangedNameListener();
+		m_workspace.run(new IWorkspaceRunnable()
+		{
+			@Override
+			public void run (IProgressMonitor a_monitor) throws CoreException
+			{
+				for (IProject project : m_projects) project.delete(true, true, null);
+			}
+		}, null);
+		awaitValidation();
+		m_closingDialogs = false;
+		ValidationMetrics.getInstance().setEnabled(false);
+		m_root.delete();
+	}
+	
+	@Test
+	public void testWorkspaceOperationsStayWithinBounds () throws Exception
+	{
+		createProjects();
+		awaitValidation();
+		renameProjects();
+		awaitValidation();
+		closeAndOpenProjects();
+		awaitValidation();
+		
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		String report = System.getProperty("soak.report");
+		if (report != null) metrics.writeReport(report);
+		assertPercentile(Operation.LISTENER_EVENT, MAX_LISTENER_P99_MICROS);
+		assertPercentile(Operation.VALIDATION, MAX_VALIDATION_P99_MICROS);
+		assertPercentile(Operation.UI_THREAD, MAX_UI_THREAD_P99_MICROS);
+		for (IProject project : m_projects)
+		{
+			int markers = project.findMarkers(ProblemNameMarkerManager.MARKER_TYPE, false,
+											  IResource.DEPTH_ZERO).length;
+			assertEquals(project.getName(), isMismatch(project) ? 1 : 0, markers);
+		}
+	}
+	
+	/**
+	 * Создаёт и открывает PROJECT_COUNT проектов одной
+	 * операцией над рабочей областью.
+	 * @throws CoreException
+	 */
+	private void createProjects () throws CoreException
+	{
+		m_workspace.run(new IWorkspaceRunnable()
+		{
+			@Override
+			public void run (IProgressMonitor a_monitor) throws CoreException
+			{
+				for (int i = 0; i < PROJECT_COUNT; i++)
+				{
+					String name = "soak" + i;
+					String folderName = (i % MISMATCH_PERIOD == 0) ? "folder" + i : name;
+					IProject project = m_workspace.getRoot().getProject(name);
+					IProjectDescription description = m_workspace.newProjectDescription(name);
+					description.setLocation(Path.fromOSString(new File(m_root, folderName).getAbsolutePath()));
+					project.create(description, null);
+					project.open(null);
+					m_projects.add(project);
+				}
+			}
+		}, null);
+	}
+	
+	/**
+	 * Переименовывает проекты по одному, не перемещая их
+	 * папки. Проект с несовпадающим именем получает имя
+	 * своей папки, остальные - новое имя, не совпадающее с
+	 * именем папки.
+	 * @throws CoreException
+	 */
+	private void renameProjects () throws CoreException
+	{
+		for (int i = 0; i < RENAME_COUNT; i++)
+		{
+			int index = i % m_projects.size();
+			IProject project = m_projects.get(index);
+			String newName = isMismatch(project) ? getFolderName(project) : "renamed" + index;
+			IProjectDescription description = project.getDescription();
+			description.setName(newName);
+			project.move(description, IResource.FORCE | IResource.SHALLOW, null);
+			m_projects.set(index, m_workspace.getRoot().getProject(newName));
+		}
+	}
+	
+	/**
+	 * Закрывает и открывает CLOSE_OPEN_PROJECT_COUNT
+	 * проектов, распределённых по всем проектам, по одному
+	 * CLOSE_OPEN_ROUND_COUNT раз.
+	 * @throws CoreException
+	 */
+	private void closeAndOpenProjects () throws CoreException
+	{
+		int step = Math.max(1, m_projects.size() / Math.max(1, CLOSE_OPEN_PROJECT_COUNT));
+		for (int round = 0; round < CLOSE_OPEN_ROUND_COUNT; round++)
+		{
+			for (int i = 0; i < m_projects.size(); i += step)
+			{
+				IProject project = m_projects.get(i);
+				project.close(null);
+				project.open(null);
+			}
+		}
+	}
+	
+	/**
+	 * Проверяет, что операция выполнялась и её 99-й
+	 * перцентиль не превышает границу.
+	 * @param a_operation
+	 * 		  Операция
+	 * @param a_maxP99Micros
+	 * 		  Граница в микросекундах
+	 */
+	private static void assertPercentile (Operation a_operation, long a_maxP99Micros)
+	{
+		LatencyHistogram histogram = ValidationMetrics.getInstance().getHistogram(a_operation);
+		assertTrue(a_operation + " not recorded", histogram.getCount() > 0);
+		long p99 = TimeUnit.NANOSECONDS.toMicros(histogram.getPercentileNanos(99));
+		assertTrue(a_operation + " p99 " + p99 + "us", p99 <= a_maxP99Micros);
+	}
+	
+	/**
+	 * Дожидается, пока в течение QUIET_PERIOD не будет
+	 * заданий проверки и записи исключений. Если тест
+	 * выполняется в потоке Display, события обрабатываются
+	 * во время ожидания, чтобы показывались предупреждения.
+	 * @throws InterruptedException
+	 */
+	private void awaitValidation () throws InterruptedException
+	{
+		Display display = Display.getCurrent();
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+		long quietSince = System.currentTimeMillis();
+		while (System.currentTimeMillis() - quietSince < QUIET_PERIOD)
+		{
+			assertTrue("Validation did not finish in " + TIMEOUT_SECONDS + "s",
+					   System.currentTimeMillis() < deadline);
+			if (isValidationRunning()) quietSince = System.currentTimeMillis();
+			if (display == null || !display.readAndDispatch()) Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * @return true, если выполняется или ожидает выполнения
+	 * задание проверки или записи исключений
+	 */
+	private static boolean isValidationRunning ()
+	{
+		for (Job job : Job.getJobManager().find(null))
+		{
+			if (job.belongsTo(ProjectValidationJob.FAMILY) || job instanceof IgnoreListUpdateJob) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Запускает в потоке Display периодическое закрытие
+	 * показанных предупреждений без решения пользователя.
+	 */
+	private void startDialogCloser ()
+	{
+		m_closingDialogs = true;
+		Display display = PlatformUI.getWorkbench().getDisplay();
+		display.asyncExec(new Runnable()
+		{
+			@Override
+			public void run ()
+			{
+				if (!m_closingDialogs) return;
+				for (Shell shell : display.getShells())
+				{
+					Object window = shell.getData();
+					if (window instanceof ProblemNameDialog || window instanceof ProblemNamesDialog)
+					{
+						((Window)window).close();
+					}
+				}
+				display.timerExec(DIALOG_CLOSE_INTERVAL, this);
+			}
+		});
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект теста
+	 * @return true, если имя проекта не совпадает с именем
+	 * его папки
+	 */
+	private static boolean isMismatch (IProject a_project)
+	{
+		return !a_project.getName().equals(getFolderName(a_project));
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект теста
+	 * @return имя папки проекта
+	 */
+	private static String getFolderName (IProject a_project)
+	{
+		return a_project.getLocation().lastSegment();
+	}
+}
@@ -0,0 +1,167 @@
+package org.nilsdku.eclipse.projectnamevalidator.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nilsdku.eclipse.projectnamevalidator.StandInWorkspace;
+
+/**
+ * Тест LocationResolver на медленной файловой системе
+ * SlowFileSystem: проекты на ней не задерживают проверку
+ * дольше времени ожидания, а после первого превышения
+ * времени ожидания обращения к ней пропускаются.
+ */
+public class LocationResolverTest
+{
+	private static final long TIMEOUT = 300;
+	
+	private static final long SLOW_LATENCY = TimeUnit.SECONDS.toMillis(10);
+	
+	private static final int THREAD_COUNT = 4;
+	
+	private ExecutorService m_executor;
+	
+	private LocationResolver m_resolver;
+	
+	private StandInWorkspace m_workspace;
+	
+	@Before
+	public void setUp ()
+	{
+		m_executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		m_resolver = new LocationResolver(m_executor, TIMEOUT);
+		m_workspace = new StandInWorkspace();
+	}
+	
+	@After
+	public void tearDown ()
+	{
+		SlowFileSystem.setLatency(0);
+		m_executor.shutdownNow();
+	}
+	
+	@Test
+	public void testResolvesFolderName ()
+	{
+		assertEquals("folder", m_resolver.getFolderName(addSlowProject("project", "folder")));
+	}
+	
+	@Test
+	public void testTimeoutStartsBackoff ()
+	{
+		SlowFileSystem.setLatency(SLOW_LATENCY);
+		long startTime = System.nanoTime();
+		assertNull(m_resolver.getFolderName(addSlowProject("first", "first")));
+		assertElapsedBelow(startTime, 2 * TIMEOUT);
+		
+		startTime = System.nanoTime();
+		assertNull(m_resolver.getFolderName(addSlowProject("second", "second")));
+		assertElapsedBelow(startTime, TIMEOUT / 2);
+	}
+	
+	@Test
+	public void testConcurrentCallersFailFast () throws Exception
+	{
+		SlowFileSystem.setLatency(SLOW_LATENCY);
+		ExecutorService callers = Executors.newFixedThreadPool(16);
+		try
+		{
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			long startTime = System.nanoTime();
+			for (int i = 0; i < 64; i++)
+			{
+				IProject project = addSlowProject("project" + i, "folder" + i);
+				results.add(callers.submit(new Callable<String>()
+				{
+					@Override
+					public String call ()
+					{
+						return m_resolver.getFolderName(project);
+					}
+				}));
+			}
+			for (Future<String> result : results) assertNull(result.get());
+			/*
+			 * Все вызовы, а не только первые, завершаются за
+			 * время порядка одного времени ожидания:*/
+			assertElapsedBelow(startTime, 3 * TIMEOUT);
+		}
+		finally
+		{
+			callers.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void testSlowSchemeDoesNotDelayOtherSchemes () throws Exception
+	{
+		SlowFileSystem.setLatency(SLOW_LATENCY);
+		ExecutorService callers = Executors.newFixedThreadPool(THREAD_COUNT);
+		try
+		{
+			for (int i = 0; i < THREAD_COUNT; i++)
+			{
+				IProject project = addSlowProject("slow" + i, "slow" + i);
+				callers.submit(new Callable<String>()
+				{
+					@Override
+					public String call ()
+					{
+						return m_resolver.getFolderName(project);
+					}
+				});
+			}
+			Thread.sleep(TIMEOUT / 3);
+			
+			File folder = new File(System.getProperty("java.io.tmpdir"), "local");
+			IProject localProject = m_workspace.addProject("local", folder.toURI());
+			long startTime = System.nanoTime();
+			assertEquals("local", m_resolver.getFolderName(localProject));
+			assertElapsedBelow(startTime, TIMEOUT / 2);
+		}
+		finally
+		{
+			callers.shutdownNow();
+		}
+	}
+	
+	/**
+	 * @param a_name
+	 * 		  Имя проекта
+	 * @param a_folderName
+	 * 		  Имя папки проекта
+	 * @return проект без локального расположения, папка
+	 * которого расположена на SlowFileSystem
+	 */
+	private IProject addSlowProject (String a_name, String a_folderName)
+	{
+		return m_workspace.addProject(a_name, URI.create(SlowFileSystem.SCHEME + ":/projects/" + a_folderName));
+	}
+	
+	/**
+	 * @param a_startTime
+	 * 		  Момент начала по System.nanoTime
+	 * @param a_limit
+	 * 		  Граница (в миллисекундах)
+	 */
+	private static void assertElapsedBelow (long a_startTime, long a_limit)
+	{
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - a_startTime);
+		assertTrue(elapsed + " ms", elapsed < a_limit);
+	}
+}
@@ -0,0 +1,48 @@
+package org.nilsdku.eclipse.projectnamevalidator.location;
+
+import java.net.URI;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.filesystem.provider.FileSystem;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Файловая система EFS для тестов со схемой SCHEME,
+ * отвечающая с задержкой, заданной методом setLatency.
+ * Хранилища файловой системы не имеют содержимого, их
+ * имена берутся из пути URI.
+ */
+public class SlowFileSystem extends FileSystem
+{
+	/**
+	 * Схема URI файловой системы, объявленная в fragment.xml.
+	 */
+	public static final String SCHEME = "slowfs";
+	
+	private static volatile long s_latency;
+	
+	/**
+	 * Задаёт задержку ответа файловой системы.
+	 * @param a_latency
+	 * 		  Задержка (в миллисекундах)
+	 */
+	public static void setLatency (long a_latency)
+	{
+		s_latency = a_latency;
+	}
+	
+	@Override
+	public IFileStore getStore (URI a_uri)
+	{
+		try
+		{
+			Thread.sleep(s_latency);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		return EFS.getNullFileSystem().getStore(new Path(a_uri.getPath()));
+	}
+}
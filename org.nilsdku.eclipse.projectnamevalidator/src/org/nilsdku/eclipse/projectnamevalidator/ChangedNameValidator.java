@@ -1,41 +1,253 @@
 package org.nilsdku.eclipse.projectnamevalidator;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
-import org.eclipse.ui.PlatformUI;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.job.ExistingProjectsValidationJob;
+import org.nilsdku.eclipse.projectnamevalidator.job.IdleStartupJob;
+import org.nilsdku.eclipse.projectnamevalidator.job.MarkerRestoreJob;
+import org.nilsdku.eclipse.projectnamevalidator.job.ProjectValidationJob;
+import org.nilsdku.eclipse.projectnamevalidator.location.LocationResolver;
 import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
 import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.nilsdku.eclipse.projectnamevalidator.property.IgnoreListStore;
 import org.nilsdku.eclipse.projectnamevalidator.property.RenameIgnoringProperty;
-import org.nilsdku.eclipse.projectnamevalidator.ui.ProblemNameDialog;
+import org.nilsdku.eclipse.projectnamevalidator.rule.ProjectNameRuleSet;
+import org.nilsdku.eclipse.projectnamevalidator.snapshot.ValidationSnapshot;
+import org.nilsdku.eclipse.projectnamevalidator.watch.ProjectFolderWatcher;
 
 /**
  * Класс для проверки имени каждого проекта, входящего в Workspace,
  * на идентичность имени папки проекта в файловой системе.
+ * Соответствие имён определяется набором правил
+ * ProjectNameRuleSet.
  */
 public class ChangedNameValidator
 {
 	/**
-	 * Проверяет имена уже существующих в рабочей области проектов,
-	 * не занесённых пользователем в исключения.
+	 * Проекты, проверка которых выполняется в данный момент
+	 * любым объектом ChangedNameValidator. Значение равно
+	 * null, если повторная проверка не запрошена, иначе
+	 * определяет, нужно ли при повторной проверке создавать
+	 * диалоговое окно с предупреждением.
+	 */
+	private static final Map<IProject, Boolean> s_projectsInFlight = new HashMap<IProject, Boolean>();
+	
+	/**
+	 * Номера последних проверок проектов методом
+	 * validateProjectName. По ним пакетные операции над
+	 * маркерами отбрасывают решения, принятые до более
+	 * поздней проверки проекта. Номер проекта изменяется
+	 * только под блокировкой ProblemNameMarkerManager.getLock
+	 * этого проекта.
+	 */
+	private static final Map<IProject, Long> s_validationStamps = new ConcurrentHashMap<IProject, Long>();
+	
+	private static final AtomicLong s_lastValidationStamp = new AtomicLong();
+	
+	private IWorkspace m_workspace;
+	
+	private ProjectNameRuleSet m_rules;
+	
+	private LocationResolver m_locationResolver;
+	
+	private ProjectValidationJob m_validationJob = new ProjectValidationJob(this);
+	
+	/**
+	 * Объект, показывающий предупреждение пользователю. Если
+	 * равен null (например, при работе без пользовательского
+	 * интерфейса), предупреждения не показываются.
+	 */
+	private volatile IWarningDialogOpener m_warningDialogOpener;
+	
+	/**
+	 * Слушатель, добавленный методом addChangedNameListener.
+	 */
+	private IResourceChangeListener m_changedNameListener;
+	
+	/**
+	 * Конструктор класса ChangedNameValidator для рабочей
+	 * области платформы.
+	 */
+	public ChangedNameValidator ()
+	{
+		this(ResourcesPlugin.getWorkspace());
+	}
+	
+	/**
+	 * Конструктор класса ChangedNameValidator.
+	 * @param a_workspace
+	 * 		  Рабочая область, проекты которой проверяются.
+	 * 		  NotNull
+	 */
+	public ChangedNameValidator (IWorkspace a_workspace)
+	{
+		this(a_workspace, ProjectNameRuleSet.getDefault());
+	}
+	
+	/**
+	 * Конструктор класса ChangedNameValidator.
+	 * @param a_workspace
+	 * 		  Рабочая область, проекты которой проверяются.
+	 * 		  NotNull
+	 * @param a_rules
+	 * 		  Правила проверки имени проекта. NotNull
+	 */
+	public ChangedNameValidator (IWorkspace a_workspace, ProjectNameRuleSet a_rules)
+	{
+		this(a_workspace, a_rules, LocationResolver.getDefault());
+	}
+	
+	/**
+	 * Конструктор класса ChangedNameValidator.
+	 * @param a_workspace
+	 * 		  Рабочая область, проекты которой проверяются.
+	 * 		  NotNull
+	 * @param a_rules
+	 * 		  Правила проверки имени проекта. NotNull
+	 * @param a_locationResolver
+	 * 		  Объект, определяющий имя папки проекта. NotNull
+	 */
+	public ChangedNameValidator (IWorkspace a_workspace, ProjectNameRuleSet a_rules,
+								 LocationResolver a_locationResolver)
+	{
+		m_workspace = Objects.requireNonNull(a_workspace);
+		m_rules = Objects.requireNonNull(a_rules);
+		m_locationResolver = Objects.requireNonNull(a_locationResolver);
+	}
+	
+	/**
+	 * Устанавливает объект, показывающий пользователю
+	 * предупреждение о несовпадении имён.
+	 * @param a_opener
+	 * 		  Объект, показывающий предупреждение. Может быть
+	 * 		  null
+	 */
+	public void setWarningDialogOpener (IWarningDialogOpener a_opener)
+	{
+		m_warningDialogOpener = a_opener;
+	}
+	
+	/**
+	 * Ставит проекты в очередь задания, выполняющего их
+	 * проверку в фоновом режиме.
+	 * @param a_projects
+	 * 		  Проекты для проверки. NotNull
+	 * @param a_createWarningDialog
+	 * 		  Параметр, определяющий нужно ли создавать диалоговое
+	 * 		  окно с предупреждением в случае несовпадения имени
+	 * 		  проекта и имени его папки
+	 */
+	public void scheduleValidation (Collection<IProject> a_projects, boolean a_createWarningDialog)
+	{
+		m_validationJob.enqueue(a_projects, a_createWarningDialog);
+	}
+	
+	/**
+	 * Запускает задание проверки имён уже существующих в рабочей
+	 * области проектов, не занесённых пользователем в исключения.
 	 * Если имя проекта не совпадает с именем папки проекта в
 	 * файловой системе, на проект ставится маркер проблемы, иначе
 	 * маркер удаляется.
+	 * @return запланированное задание проверки
+	 */
+	public Job validateExistingProjectNames ()
+	{
+		Job job = new ExistingProjectsValidationJob(this, getProjectsToValidate());
+		job.schedule();
+		return job;
+	}
+	
+	/**
+	 * Запускает задание проверки имён уже существующих в рабочей
+	 * области проектов, которое дожидается окончания сборки и
+	 * других заданий рабочей области и проверяет в первую очередь
+	 * проекты, видимые пользователю.
+	 * @return запланированное задание
+	 */
+	public Job validateExistingProjectNamesWhenIdle ()
+	{
+		Job job = new IdleStartupJob(this);
+		job.schedule();
+		return job;
+	}
+	
+	/**
+	 * Отбирает проекты рабочей области, имя или расположение
+	 * которых изменились с момента последнего сохранения снимка
+	 * ValidationSnapshot.
+	 * @return проекты, требующие проверки при запуске
+	 */
+	public IProject[] getProjectsToValidate ()
+	{
+		return restoreSnapshot().getChangedProjects(m_workspace.getRoot().getProjects());
+	}
+	
+	/**
+	 * @return рабочая область, проекты которой проверяются
+	 */
+	public IWorkspace getWorkspace ()
+	{
+		return m_workspace;
+	}
+	
+	/**
+	 * @return набор правил проверки имён
+	 */
+	public ProjectNameRuleSet getRules ()
+	{
+		return m_rules;
+	}
+	
+	/**
+	 * Запускает задание, восстанавливающее маркеры на
+	 * проектах, которые не изменились с момента последнего
+	 * сохранения снимка ValidationSnapshot и поэтому не
+	 * будут проверены при запуске. Маркеры не сохраняются
+	 * вместе с рабочей областью.
+	 * @return запланированное задание
+	 */
+	public Job restoreMarkers ()
+	{
+		List<IProject> problemProjects = restoreSnapshot().getProblemProjects(m_workspace.getRoot().getProjects());
+		Job job = new MarkerRestoreJob(m_workspace, problemProjects, captureValidationStamps(problemProjects));
+		job.schedule();
+		return job;
+	}
+	
+	/**
+	 * @return снимок ValidationSnapshot, загруженный при
+	 * первом вызове
 	 */
-	public void validateExistingProjectNames ()
+	private ValidationSnapshot restoreSnapshot ()
 	{
-		IWorkspace workspace = ResourcesPlugin.getWorkspace();
-		IProject[] projects = workspace.getRoot().getProjects();
-		for (IProject project : projects)
+		ValidationSnapshot snapshot = ValidationSnapshot.getInstance();
+		try
+		{
+			snapshot.restore(m_workspace, m_rules.getFingerprint());
+		}
+		catch (CoreException e)
 		{
-			if (project.isOpen()) validateProjectName(project, false);
+			ErrorStatusHandler.log(e, e.getMessage());
 		}
+		return snapshot;
 	}
 	
 	/**
@@ -64,23 +276,104 @@ public class ChangedNameValidator
 	}
 	
 	/**
+	 * Определяет, должен ли на проекте a_project стоять
+	 * маркер проблемы, не изменяя сами маркеры. Результат
+	 * запоминается в снимке ValidationSnapshot.
 	 * @param a_project
-	 * 		  Проект для проверки
-	 * @return true в случае существования свойства RenameIgnoringProperty
-	 * на проекте a_project, false - иначе
+	 * 		  Проект для проверки. NotNull
+	 * @return true, если проект не занесён в исключения, а
+	 * его имя не принимается ни одним правилом набора
+	 * ProjectNameRuleSet, false - иначе
 	 */
-	private boolean renameIgnoringPropertyExists (IProject a_project)
+	public boolean hasProblemName (IProject a_project)
 	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
 		try
 		{
-			RenameIgnoringProperty property = new RenameIgnoringProperty(a_project);
-			return property.exists() ? true : false;
+			return hasProblemName(captureState(a_project));
 		}
-		catch(CoreException e)
+		finally
 		{
-			ErrorStatusHandler.log(e, e.getMessage());
+			metrics.record(Operation.VALIDATION, startTime);
+		}
+	}
+	
+	/**
+	 * Читает состояние проекта, по которому принимается
+	 * решение методом hasProblemName, не выполняя поиск
+	 * маркера.
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @return снимок состояния проекта
+	 */
+	public ProjectState captureState (IProject a_project)
+	{
+		return ProjectState.capture(a_project, m_locationResolver, false);
+	}
+	
+	/**
+	 * Принимает решение по снимку состояния проекта и
+	 * запоминает его в снимке ValidationSnapshot. Вызывающий
+	 * может вывести имя папки и признак исключения из того
+	 * же снимка, по которому принято решение.
+	 * @param a_state
+	 * 		  Снимок состояния проекта. NotNull
+	 * @return true, если на проекте должен стоять маркер
+	 * проблемы, false - иначе
+	 */
+	public boolean hasProblemName (ProjectState a_state)
+	{
+		IProject project = a_state.getProject();
+		String pathLastSegment = a_state.getFolderName();
+		if (a_state.isIgnored())
+		{
+			ValidationSnapshot.getInstance().update(project, pathLastSegment, true, false);
 			return false;
 		}
+		if (pathLastSegment == null) return false;
+		boolean problem = m_rules.hasProblemName(a_state.getName(), pathLastSegment, project);
+		ValidationSnapshot.getInstance().update(project, pathLastSegment, false, problem);
+		if (problem) ValidationMetrics.getInstance().recordMismatch();
+		return problem;
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @return номер последней проверки проекта методом
+	 * validateProjectName или 0, если проект не проверялся
+	 */
+	public static long getValidationStamp (IProject a_project)
+	{
+		Long stamp = s_validationStamps.get(a_project);
+		return (stamp != null) ? stamp.longValue() : 0;
+	}
+	
+	/**
+	 * Запоминает номера последних проверок проектов
+	 * a_projects перед принятием решения о маркерах без
+	 * вызова validateProjectName.
+	 * @param a_projects
+	 * 		  Проекты. NotNull
+	 * @return условие, истинное для проектов, которые с
+	 * момента вызова не проверялись методом
+	 * validateProjectName, то есть решение для которых ещё
+	 * актуально
+	 */
+	public static Predicate<IProject> captureValidationStamps (Collection<IProject> a_projects)
+	{
+		Map<IProject, Long> stamps = new HashMap<IProject, Long>();
+		for (IProject project : a_projects) stamps.put(project, getValidationStamp(project));
+		return new Predicate<IProject>()
+		{
+			@Override
+			public boolean test (IProject a_project)
+			{
+				Long stamp = stamps.get(a_project);
+				return stamp != null && stamp.longValue() == getValidationStamp(a_project);
+			}
+		};
 	}
 	
 	/**
@@ -90,9 +383,15 @@ public class ChangedNameValidator
 	 * иначе маркер удаляется.
 	 * Если параметр a_createWarningDialog равен true, в случае
 	 * несовпадения имён и несуществования на проекте свойства
-	 * RenameIgnoringProperty метод создаёт диалоговое окно с
-	 * предупреждением пользователю и возможностью выбрать, нужно
-	 * ли заносить проект a_project в исключения.
+	 * RenameIgnoringProperty метод с помощью IWarningDialogOpener
+	 * асинхронно создаёт диалоговое окно с предупреждением
+	 * пользователю и возможностью выбрать, нужно ли заносить
+	 * проект a_project в исключения. После закрытия окна проект
+	 * проверяется повторно.
+	 * Если проект уже проверяется в другом потоке, проверка
+	 * не дублируется: поток, выполняющий её, по окончании
+	 * проверяет проект ещё один раз, сколько бы запросов
+	 * ни поступило за это время.
 	 * @param a_project
 	 * 		  Проект, имя которого необходимо проверить. NotNull
 	 * @param a_createWarningDialog
@@ -103,63 +402,124 @@ public class ChangedNameValidator
 	 */
 	public void validateProjectName (IProject a_project, boolean a_createWarningDialog)
 	{
-		/**
-		 * Если проект занесён в исключения, следует вызвать метод
-		 * ProblemNameMarkerManager.deleteMarker, который
-		 * удалит маркер, если он существует:*/
-		ProblemNameMarkerManager manager = new ProblemNameMarkerManager(a_project);
-		if (ignoreProject(a_project))
+		synchronized (s_projectsInFlight)
 		{
-			deleteMarker(manager);
-			return;
+			if (s_projectsInFlight.containsKey(a_project))
+			{
+				Boolean rerun = s_projectsInFlight.get(a_project);
+				s_projectsInFlight.put(a_project, Boolean.TRUE.equals(rerun) || a_createWarningDialog);
+				return;
+			}
+			s_projectsInFlight.put(a_project, null);
 		}
-		String name = a_project.getName();
-		IPath location = a_project.getLocation();
-		if (location == null) return;
-		String pathLastSegment = location.lastSegment();
-		if (!name.equals(pathLastSegment))
+		Boolean createWarningDialog = Boolean.valueOf(a_createWarningDialog);
+		try
 		{
-			if (a_createWarningDialog && !renameIgnoringPropertyExists(a_project))
+			while (createWarningDialog != null)
 			{
-				PlatformUI.getWorkbench().getDisplay().syncExec(new Runnable()
+				validateProjectNameOnce(a_project, createWarningDialog);
+				synchronized (s_projectsInFlight)
 				{
-				    @Override
-				    public void run ()
-				    {
-				    	ProblemNameDialog dialog = new ProblemNameDialog(a_project);
-						dialog.open();
-				    }
-				});
-				/**
-				 * Если пользователь с помощью диалогового окна занёс
-				 * проект в исключения, необходимость создания маркера
-				 * отсутствует:*/
-				if (ignoreProject(a_project)) return;
+					createWarningDialog = s_projectsInFlight.get(a_project);
+					if (createWarningDialog == null) s_projectsInFlight.remove(a_project);
+					else s_projectsInFlight.put(a_project, null);
+				}
 			}
-			try
+		}
+		finally
+		{
+			/*
+			 * При исключении проект освобождается, чтобы
+			 * следующие проверки не отбрасывались:*/
+			if (createWarningDialog != null)
+			{
+				synchronized (s_projectsInFlight)
+				{
+					s_projectsInFlight.remove(a_project);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Выполняет одну проверку имени проекта.
+	 * @param a_project
+	 * 		  Проект, имя которого необходимо проверить. NotNull
+	 * @param a_createWarningDialog
+	 * 		  Параметр, определяющий нужно ли создавать диалоговое
+	 * 		  окно с предупреждением
+	 */
+	private void validateProjectNameOnce (IProject a_project, boolean a_createWarningDialog)
+	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		try
+		{
+			/*
+			 * Все решения принимаются по одному снимку состояния
+			 * проекта. Если проект занесён в исключения, маркер
+			 * удаляется, если он существует:*/
+			ProjectState state = ProjectState.capture(a_project, m_locationResolver, true);
+			boolean problem = hasProblemName(state);
+			if (problem)
 			{
-				manager.createMarker();
+				IWarningDialogOpener opener = m_warningDialogOpener;
+				if (a_createWarningDialog && opener != null && !state.hasIgnoreValue())
+				{
+					opener.open(a_project);
+				}
 			}
-			catch (CoreException e)
+			/*
+			 * Номер проверки и маркер изменяются под той же
+			 * блокировкой проекта, под которой пакетные операции
+			 * сверяют номер и изменяют маркер, поэтому решение,
+			 * принятое раньше этой проверки, не может записать
+			 * маркер после неё:*/
+			synchronized (ProblemNameMarkerManager.getLock(a_project))
 			{
-				ErrorStatusHandler.log(e, Messages.Exception_Marker_Creation);
+				if (a_project.exists()) s_validationStamps.put(a_project, s_lastValidationStamp.incrementAndGet());
+				else s_validationStamps.remove(a_project);
+				if (problem) createMarker(state);
+				else if (state.isIgnored() || state.getFolderName() != null) deleteMarker(state);
 			}
 		}
-		else deleteMarker(manager);
+		finally
+		{
+			metrics.record(Operation.VALIDATION, startTime);
+		}
+	}
+	
+	/**
+	 * Метод создаёт маркер проблемного имени проекта, если он
+	 * не существует.
+	 * @param a_state
+	 * 	      Снимок состояния проекта, созданный с поиском
+	 * 		  маркера
+	 */
+	private void createMarker (ProjectState a_state)
+	{
+		try
+		{
+			ProblemNameMarkerManager.createMarker(a_state);
+		}
+		catch (CoreException e)
+		{
+			ErrorStatusHandler.log(e, Messages.Exception_Marker_Creation);
+		}
 	}
 	
 	/**
 	 * Метод удаляет маркер проблемного имени проекта, если он
 	 * существует.
-	 * @param a_manager
-	 * 	      Объект, с помощью которого происходит удаление
+	 * @param a_state
+	 * 	      Снимок состояния проекта, созданный с поиском
 	 * 		  маркера
 	 */
-	private void deleteMarker (ProblemNameMarkerManager a_manager)
+	private void deleteMarker (ProjectState a_state)
 	{
 		try
 		{
-			a_manager.deleteMarker();
+			ProblemNameMarkerManager.deleteMarker(a_state);
 		}
 		catch (CoreException e)
 		{
@@ -174,20 +534,63 @@ public class ChangedNameValidator
 	 * исключения, на него ставится маркер проблемы. После
 	 * исправления проблемы пользователем маркер удаляется.
 	 */
-	public void addChangedNameListener ()
+	public synchronized void addChangedNameListener ()
+	{
+		if (m_changedNameListener != null) return;
+		m_changedNameListener = createPostChangeListener();
+		m_workspace.addResourceChangeListener (m_changedNameListener,
+											   IResourceChangeEvent.POST_CHANGE);
+	}
+	
+	/**
+	 * Удаляет слушатель, добавленный методом
+	 * addChangedNameListener.
+	 */
+	public synchronized void removeChangedNameListener ()
 	{
-		ResourcesPlugin.getWorkspace().addResourceChangeListener (createPostBuildListener(),
-																  IResourceChangeEvent.POST_BUILD);
+		if (m_changedNameListener == null) return;
+		m_workspace.removeResourceChangeListener(m_changedNameListener);
+		m_changedNameListener = null;
+	}
+	
+	/**
+	 * Запускает наблюдение за переименованием папок открытых
+	 * проектов вне среды разработки, если оно не отключено
+	 * настройкой Startup.PREFERENCE_WATCH_FOLDERS. Проекты,
+	 * папки которых изменились, обновляются и проверяются
+	 * повторно. Наблюдение запускается и останавливается при
+	 * изменении настройки и останавливается вместе с плагином.
+	 * @return объект наблюдения или null, если наблюдение
+	 * не поддерживается файловой системой
+	 */
+	public ProjectFolderWatcher addProjectFolderWatcher ()
+	{
+		ProjectFolderWatcher watcher = new ProjectFolderWatcher(m_workspace, this);
+		try
+		{
+			watcher.enable();
+			return watcher;
+		}
+		catch (IOException | UnsupportedOperationException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+			return null;
+		}
 	}
 	
 	
 	/**
 	 * Создаёт слушатель изменения ресурса (для события
-	 * IResourceChangeEvent.POST_BUILD). Слушатель вызывает
-	 * метод проверки имени проекта ресурса ("validateProjectName").
+	 * IResourceChangeEvent.POST_CHANGE). Слушатель с помощью
+	 * посетителя ProjectDeltaVisitor отбирает добавленные,
+	 * переименованные, перемещённые, открытые проекты и
+	 * проекты с изменённым описанием и только ставит их в
+	 * очередь задания проверки, которое вызывает метод
+	 * проверки имени проекта ресурса ("validateProjectName")
+	 * вне потока уведомления.
 	 * @return слушатель изменения ресурса
 	 */
-	private IResourceChangeListener createPostBuildListener ()
+	private IResourceChangeListener createPostChangeListener ()
 	{
 		return new IResourceChangeListener ()
 		{
@@ -196,17 +599,56 @@ public class ChangedNameValidator
 			{
 				IResourceDelta rootDelta = a_event.getDelta();
 				if (rootDelta == null) return;
-				IResourceDelta[] children = rootDelta.getAffectedChildren(IResourceDelta.ADDED);
-				for (IResourceDelta delta : children)
+				ValidationMetrics metrics = ValidationMetrics.getInstance();
+				long startTime = metrics.start();
+				ProjectDeltaVisitor visitor = new ProjectDeltaVisitor();
+				try
 				{
-					IResource resource = delta.getResource();
-					
-					if (resource == null || !resource.exists() || resource.getType() != IResource.PROJECT) continue;
-					
-					IProject project = resource.getProject();
-					validateProjectName(project, true);
+					rootDelta.accept(visitor);
 				}
+				catch (CoreException e)
+				{
+					ErrorStatusHandler.log(e, e.getMessage());
+				}
+				handleDelta(visitor);
+				metrics.record(Operation.LISTENER_EVENT, startTime);
 			}
 		};
 	}
+	
+	/**
+	 * Обрабатывает проекты, отобранные посетителем
+	 * a_visitor: переносит исключения переименованных
+	 * проектов на новые имена, удаляет исключения удалённых
+	 * проектов и ставит проекты в очередь задания проверки.
+	 * Используется слушателем изменения ресурсов и
+	 * StartupEventBuffer.
+	 * @param a_visitor
+	 * 		  Посетитель, обошедший дельту одного или нескольких
+	 * 		  событий. NotNull
+	 */
+	public void handleDelta (ProjectDeltaVisitor a_visitor)
+	{
+		/*
+		 * Исключения переносятся на новые имена до
+		 * проверки переименованных проектов:*/
+		IgnoreListStore.getInstance(m_workspace).updateNames(a_visitor.getRenamedProjects(),
+															 a_visitor.getRemovedProjects());
+		scheduleValidation(a_visitor);
+	}
+	
+	/**
+	 * Ставит проекты, отобранные посетителем a_visitor, в
+	 * очередь задания проверки.
+	 * @param a_visitor
+	 * 		  Посетитель, обошедший дельту одного события. NotNull
+	 */
+	public void scheduleValidation (ProjectDeltaVisitor a_visitor)
+	{
+		/*
+		 * Диалоговое окно с предупреждением показывается
+		 * только для новых и переименованных проектов:*/
+		m_validationJob.enqueue(a_visitor.getAddedProjects(), true);
+		m_validationJob.enqueue(a_visitor.getChangedProjects(), false);
+	}
 }
@@ -0,0 +1,21 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Интерфейс объекта, показывающего пользователю
+ * предупреждение о несовпадении имени проекта и имени
+ * его папки. Позволяет ChangedNameValidator не зависеть
+ * от классов пользовательского интерфейса.
+ */
+public interface IWarningDialogOpener
+{
+	/**
+	 * Асинхронно показывает пользователю предупреждение
+	 * для проекта a_project.
+	 * @param a_project
+	 * 		  Проект, имя которого не совпадает с именем
+	 * 		  его папки. NotNull
+	 */
+	void open (IProject a_project);
+}
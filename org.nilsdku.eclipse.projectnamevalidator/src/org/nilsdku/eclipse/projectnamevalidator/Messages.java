@@ -33,5 +33,68 @@ public class Messages extends NLS
 	public static String Warning_Dialog_Message;
 	
 	public static String Property_Page_Text;
+	
+	public static String Job_Existing_Projects_Validation;
+	
+	public static String Job_Existing_Projects_Validation_Time;
+	
+	public static String Job_Project_Validation;
+	
+	public static String Error_Validation_Pass;
+	
+	public static String Error_Repeated;
+	
+	public static String Error_Omitted;
+	
+	public static String Job_Ignore_List_Update;
+	
+	public static String Problem_Names_Dialog_Title;
+	
+	public static String Problem_Names_Dialog_Message;
+	
+	public static String Problem_Names_Dialog_Project;
+	
+	public static String Problem_Names_Dialog_Folder;
+	
+	public static String Problem_Names_Dialog_Ignore;
+	
+	public static String Problem_Names_Dialog_Unignore;
+	
+	public static String Job_Problem_Name_Fix;
+	
+	public static String Exception_Fix_Target_Exists;
+	
+	public static String Resolution_Rename_Project_Label;
+	
+	public static String Resolution_Rename_Project_Description;
+	
+	public static String Resolution_Rename_Folder_Label;
+	
+	public static String Resolution_Rename_Folder_Description;
+	
+	public static String Info_Location_Timeout;
+	
+	public static String Info_Closed_Project_Mismatches;
+	
+	public static String Job_External_Rename;
+	
+	public static String Info_Ui_Thread_Blocked;
+	
+	public static String Job_Ignore_List_Read;
+	
+	public static String Job_Marker_Restore;
+	
+	public static String Job_Folder_Watch_Update;
+	
+	public static String Info_Project_Folder_Missing;
+	
+	public static String Info_Project_Folder_Moved;
+	
+	public static String Job_Unimported_Projects_Scan;
+	
+	public static String Info_Unimported_Project_Mismatches;
+	
+	public static String Info_Unimported_Project_Scan_Failure;
+	
+	public static String Job_Deferred_Startup;
 }
-
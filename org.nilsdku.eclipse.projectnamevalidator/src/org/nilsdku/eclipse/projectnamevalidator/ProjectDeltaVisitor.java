@@ -0,0 +1,130 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Посетитель дельты изменения ресурсов, отбирающий
+ * проекты, имя или расположение которых могли
+ * измениться, а также переименованные и удалённые
+ * проекты, исключения которых нужно перенести или
+ * удалить. Посетитель не спускается ниже уровня
+ * проектов.
+ */
+public class ProjectDeltaVisitor implements IResourceDeltaVisitor
+{
+	private List<IProject> m_addedProjects = new ArrayList<IProject>();
+	
+	private List<IProject> m_changedProjects = new ArrayList<IProject>();
+	
+	private Map<IProject, IProject> m_renamedProjects = new LinkedHashMap<IProject, IProject>();
+	
+	private List<IProject> m_removedProjects = new ArrayList<IProject>();
+	
+	@Override
+	public boolean visit (IResourceDelta a_delta)
+	{
+		IResource resource = a_delta.getResource();
+		if (resource.getType() == IResource.ROOT) return true;
+		if (resource.getType() != IResource.PROJECT) return false;
+		
+		IProject project = (IProject)resource;
+		addProject(project, a_delta.getKind(), a_delta.getFlags(), project.isOpen());
+		if (a_delta.getKind() == IResourceDelta.ADDED && (a_delta.getFlags() & IResourceDelta.MOVED_FROM) != 0)
+		{
+			IPath movedFromPath = a_delta.getMovedFromPath();
+			IProject oldProject = project.getWorkspace().getRoot().getProject(movedFromPath.lastSegment());
+			if (!oldProject.equals(project)) m_renamedProjects.put(oldProject, project);
+		}
+		else if (a_delta.getKind() == IResourceDelta.REMOVED && (a_delta.getFlags() & IResourceDelta.MOVED_TO) == 0)
+		{
+			m_removedProjects.add(project);
+		}
+		return false;
+	}
+	
+	/**
+	 * Отбирает проект по виду и флагам его дельты. Метод
+	 * используется и при воспроизведении записанных событий
+	 * EventTraceReplayer.
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @param a_kind
+	 * 		  Вид дельты IResourceDelta.getKind
+	 * @param a_flags
+	 * 		  Флаги дельты IResourceDelta.getFlags
+	 * @param a_open
+	 * 		  true, если проект открыт
+	 */
+	public void addProject (IProject a_project, int a_kind, int a_flags, boolean a_open)
+	{
+		switch (a_kind)
+		{
+			case IResourceDelta.ADDED:
+				/*
+				 * Новый, импортированный, переименованный
+				 * (MOVED_FROM) или перемещённый проект:*/
+				m_addedProjects.add(a_project);
+				break;
+			case IResourceDelta.CHANGED:
+				/*
+				 * Открытый проект или проект, описание которого
+				 * изменилось:*/
+				if (((a_flags & IResourceDelta.OPEN) != 0 && a_open) ||
+					(a_flags & IResourceDelta.DESCRIPTION) != 0)
+				{
+					m_changedProjects.add(a_project);
+				}
+				break;
+			default:
+				/*
+				 * Удалённый проект (в том числе исходный проект
+				 * при переименовании, MOVED_TO) не проверяется:*/
+				break;
+		}
+	}
+	
+	/**
+	 * @return проекты, добавленные в рабочую область, в том
+	 * числе в результате переименования или перемещения
+	 */
+	public List<IProject> getAddedProjects ()
+	{
+		return m_addedProjects;
+	}
+	
+	/**
+	 * @return открытые проекты и проекты с изменённым
+	 * описанием
+	 */
+	public List<IProject> getChangedProjects ()
+	{
+		return m_changedProjects;
+	}
+	
+	/**
+	 * @return переименованные проекты: прежние проекты и
+	 * проекты с новыми именами
+	 */
+	public Map<IProject, IProject> getRenamedProjects ()
+	{
+		return m_renamedProjects;
+	}
+	
+	/**
+	 * @return проекты, удалённые из рабочей области не в
+	 * результате переименования
+	 */
+	public List<IProject> getRemovedProjects ()
+	{
+		return m_removedProjects;
+	}
+}
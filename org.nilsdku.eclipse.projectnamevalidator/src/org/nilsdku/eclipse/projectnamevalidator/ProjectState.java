@@ -0,0 +1,161 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import java.util.Objects;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.nilsdku.eclipse.projectnamevalidator.location.LocationResolver;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+import org.nilsdku.eclipse.projectnamevalidator.property.IgnoreListStore;
+
+/**
+ * Неизменяемый снимок состояния проекта, по которому
+ * принимаются все решения одной проверки его имени.
+ * Состояние проекта, имя его папки, значение свойства
+ * RenameIgnoringProperty и маркер читаются один раз при
+ * создании снимка.
+ */
+public final class ProjectState
+{
+	private final IProject m_project;
+	
+	private final String m_name;
+	
+	private final boolean m_open;
+	
+	private final String m_folderName;
+	
+	private final Boolean m_ignoreValue;
+	
+	private final IMarker m_marker;
+	
+	/**
+	 * Конструктор класса ProjectState.
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @param a_open
+	 * 		  true, если проект существует и открыт
+	 * @param a_folderName
+	 * 		  Имя папки проекта. Может быть null
+	 * @param a_ignoreValue
+	 * 		  Значение свойства RenameIgnoringProperty или null,
+	 * 		  если свойство не существует
+	 * @param a_marker
+	 * 		  Маркер проблемного имени. Может быть null
+	 */
+	private ProjectState (IProject a_project, boolean a_open, String a_folderName, Boolean a_ignoreValue,
+						  IMarker a_marker)
+	{
+		m_project = Objects.requireNonNull(a_project);
+		m_name = a_project.getName();
+		m_open = a_open;
+		m_folderName = a_folderName;
+		m_ignoreValue = a_ignoreValue;
+		m_marker = a_marker;
+	}
+	
+	/**
+	 * Читает состояние проекта. Ошибки чтения логируются,
+	 * а соответствующие значения считаются отсутствующими.
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @param a_locationResolver
+	 * 		  Объект, определяющий имя папки проекта. NotNull
+	 * @param a_findMarker
+	 * 		  true, если нужно найти маркер проблемного имени
+	 * 		  (только для открытого проекта)
+	 * @return снимок состояния проекта
+	 */
+	public static ProjectState capture (IProject a_project, LocationResolver a_locationResolver,
+										boolean a_findMarker)
+	{
+		/*
+		 * IProject.isOpen возвращает false и для
+		 * несуществующего проекта:*/
+		boolean open = a_project.isOpen();
+		String folderName = a_locationResolver.getFolderName(a_project);
+		Boolean ignoreValue = null;
+		try
+		{
+			ignoreValue = IgnoreListStore.getInstance(a_project.getWorkspace()).get(a_project);
+		}
+		catch (CoreException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+		IMarker marker = null;
+		if (a_findMarker && open)
+		{
+			try
+			{
+				marker = ProblemNameMarkerManager.findMarker(a_project);
+			}
+			catch (CoreException e)
+			{
+				ErrorStatusHandler.log(e, e.getMessage());
+			}
+		}
+		return new ProjectState(a_project, open, folderName, ignoreValue, marker);
+	}
+	
+	/**
+	 * @return проект
+	 */
+	public IProject getProject ()
+	{
+		return m_project;
+	}
+	
+	/**
+	 * @return имя проекта на момент создания снимка
+	 */
+	public String getName ()
+	{
+		return m_name;
+	}
+	
+	/**
+	 * @return true, если проект существовал и был открыт
+	 */
+	public boolean isOpen ()
+	{
+		return m_open;
+	}
+	
+	/**
+	 * @return имя папки проекта или null, если расположение
+	 * проекта неизвестно
+	 */
+	public String getFolderName ()
+	{
+		return m_folderName;
+	}
+	
+	/**
+	 * @return true, если свойство RenameIgnoringProperty
+	 * существует
+	 */
+	public boolean hasIgnoreValue ()
+	{
+		return m_ignoreValue != null;
+	}
+	
+	/**
+	 * @return true, если проект занесён в исключения
+	 */
+	public boolean isIgnored ()
+	{
+		return Boolean.TRUE.equals(m_ignoreValue);
+	}
+	
+	/**
+	 * @return маркер проблемного имени или null, если маркер
+	 * не найден или не запрашивался
+	 */
+	public IMarker getMarker ()
+	{
+		return m_marker;
+	}
+}
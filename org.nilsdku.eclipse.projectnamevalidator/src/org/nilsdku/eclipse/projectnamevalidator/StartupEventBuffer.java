@@ -0,0 +1,54 @@
+package org.nilsdku.eclipse.projectnamevalidator;
+
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+
+/**
+ * Лёгкий слушатель изменения ресурсов, который
+ * регистрируется при запуске вместо слушателя
+ * ChangedNameValidator и только отбирает проекты с помощью
+ * ProjectDeltaVisitor. После создания ChangedNameValidator
+ * отобранные проекты передаются ему методом drainTo.
+ */
+public class StartupEventBuffer implements IResourceChangeListener
+{
+	private ProjectDeltaVisitor m_visitor = new ProjectDeltaVisitor();
+	
+	@Override
+	public synchronized void resourceChanged (IResourceChangeEvent a_event)
+	{
+		IResourceDelta rootDelta = a_event.getDelta();
+		if (rootDelta == null || m_visitor == null) return;
+		try
+		{
+			rootDelta.accept(m_visitor);
+		}
+		catch (CoreException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+	}
+	
+	/**
+	 * Передаёт отобранные проекты a_validator так же, как
+	 * слушатель ChangedNameValidator: исключения
+	 * переименованных и удалённых проектов обновляются до
+	 * постановки проектов в очередь проверки. Последующие
+	 * события не отбираются.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 */
+	public void drainTo (ChangedNameValidator a_validator)
+	{
+		ProjectDeltaVisitor visitor;
+		synchronized (this)
+		{
+			visitor = m_visitor;
+			m_visitor = null;
+		}
+		if (visitor != null) a_validator.handleDelta(visitor);
+	}
+}
@@ -0,0 +1,404 @@
+package org.nilsdku.eclipse.projectnamevalidator.app;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.ProjectState;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.nilsdku.eclipse.projectnamevalidator.rule.ProjectNameRuleSet;
+import org.nilsdku.eclipse.projectnamevalidator.scan.IProjectFileHandler;
+import org.nilsdku.eclipse.projectnamevalidator.scan.ProjectFileScanner;
+import org.nilsdku.eclipse.projectnamevalidator.trace.EventTraceReplayer;
+import org.nilsdku.eclipse.projectnamevalidator.trace.TracedEvent;
+
+/**
+ * Приложение, проверяющее имена проектов рабочей области
+ * без запуска пользовательского интерфейса. Результаты
+ * выводятся построчно по мере проверки в формате JSON Lines
+ * (по умолчанию) или CSV.
+ * Аргументы:
+ * -format jsonl|csv - формат вывода;
+ * -output &lt;файл&gt; - файл для вывода (по умолчанию
+ * стандартный поток вывода);
+ * -mismatchesOnly - выводить только проекты с несовпадающими
+ * именами;
+ * -scanRoot &lt;каталог&gt; - каталог, в котором дополнительно
+ * ищутся файлы .project проектов, не импортированных в рабочую
+ * область (можно указать несколько раз);
+ * -scanDepth &lt;число&gt; - глубина поиска файлов .project;
+ * -metricsReport &lt;файл&gt; - файл, в который после проверки
+ * записывается отчёт MetricsReport о длительности операций;
+ * -replayTrace &lt;файл&gt; - вместо проверки воспроизвести
+ * события из файла записи EventTraceRecorder на временных
+ * проектах-заменителях (проекты рабочей области не
+ * затрагиваются);
+ * -replaySpeed original|max - воспроизводить события с
+ * записанными интервалами или без задержек (по умолчанию).
+ * Закрытые проекты рабочей области проверяются без открытия.
+ * Код завершения равен EXIT_MISMATCH, если найден хотя бы
+ * один проект, не занесённый в исключения, имя которого не
+ * совпадает с именем его папки, и EXIT_ERROR, если передан
+ * неизвестный аргумент или у аргумента нет значения.
+ */
+public class HeadlessValidationApplication implements IApplication
+{
+	/**
+	 * Код завершения при обнаружении несовпадения имён.
+	 */
+	public static final Integer EXIT_MISMATCH = Integer.valueOf(1);
+	
+	/**
+	 * Код завершения при ошибке ввода-вывода или неверных
+	 * аргументах.
+	 */
+	public static final Integer EXIT_ERROR = Integer.valueOf(2);
+	
+	private volatile boolean m_stopped;
+	
+	@Override
+	public Object start (IApplicationContext a_context) throws Exception
+	{
+		String[] arguments = (String[])a_context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+		if (arguments == null) arguments = new String[0];
+		String format = ValidationResultWriter.FORMAT_JSON_LINES;
+		String output = null;
+		boolean mismatchesOnly = false;
+		List<Path> scanRoots = new ArrayList<Path>();
+		int scanDepth = ProjectFileScanner.DEFAULT_MAX_DEPTH;
+		String metricsReport = null;
+		String replayTrace = null;
+		boolean replayOriginalSpeed = false;
+		for (int i = 0; i < arguments.length; i++)
+		{
+			if ("-format".equals(arguments[i]) && i + 1 < arguments.length) format = arguments[++i];
+			else if ("-output".equals(arguments[i]) && i + 1 < arguments.length) output = arguments[++i];
+			else if ("-mismatchesOnly".equals(arguments[i])) mismatchesOnly = true;
+			else if ("-metricsReport".equals(arguments[i]) && i + 1 < arguments.length)
+			{
+				metricsReport = arguments[++i];
+			}
+			else if ("-replayTrace".equals(arguments[i]) && i + 1 < arguments.length)
+			{
+				replayTrace = arguments[++i];
+			}
+			else if ("-replaySpeed".equals(arguments[i]) && i + 1 < arguments.length)
+			{
+				String replaySpeed = arguments[++i];
+				if (!"original".equals(replaySpeed) && !"max".equals(replaySpeed))
+				{
+					System.err.println("Unknown replay speed: " + replaySpeed);
+					return EXIT_ERROR;
+				}
+				replayOriginalSpeed = "original".equals(replaySpeed);
+			}
+			else if ("-scanRoot".equals(arguments[i]) && i + 1 < arguments.length)
+			{
+				scanRoots.add(Paths.get(arguments[++i]));
+			}
+			else if ("-scanDepth".equals(arguments[i]) && i + 1 < arguments.length)
+			{
+				try
+				{
+					scanDepth = Integer.parseInt(arguments[++i]);
+				}
+				catch (NumberFormatException e)
+				{
+					System.err.println("Invalid scan depth: " + arguments[i]);
+					return EXIT_ERROR;
+				}
+			}
+			else
+			{
+				/*
+				 * Неизвестный аргумент или аргумент без значения:*/
+				System.err.println("Unknown or incomplete option: " + arguments[i]);
+				return EXIT_ERROR;
+			}
+		}
+		if (!ValidationResultWriter.FORMAT_JSON_LINES.equals(format) &&
+			!ValidationResultWriter.FORMAT_CSV.equals(format))
+		{
+			System.err.println("Unknown format: " + format);
+			return EXIT_ERROR;
+		}
+		a_context.applicationRunning();
+		if (metricsReport != null) ValidationMetrics.getInstance().setEnabled(true);
+		if (replayTrace != null) return replay(new File(replayTrace), replayOriginalSpeed, metricsReport);
+		
+		try (Writer writer = createWriter(output))
+		{
+			ValidationResultWriter resultWriter = new ValidationResultWriter(writer, format);
+			int mismatches = validate(resultWriter, mismatchesOnly);
+			if (!scanRoots.isEmpty() && !m_stopped)
+			{
+				mismatches += scan(resultWriter, mismatchesOnly, scanRoots, scanDepth);
+			}
+			if (metricsReport != null) ValidationMetrics.getInstance().writeReport(metricsReport);
+			return (mismatches > 0) ? EXIT_MISMATCH : IApplication.EXIT_OK;
+		}
+		catch (IOException e)
+		{
+			System.err.println(e.getMessage());
+			return EXIT_ERROR;
+		}
+	}
+	
+	/**
+	 * Воспроизводит записанные события изменения ресурсов и
+	 * выводит количество воспроизведённых событий.
+	 * Проекты-заменители и их каталог удаляются после
+	 * воспроизведения, в том числе при ошибке.
+	 * @param a_trace
+	 * 		  Файл записи
+	 * @param a_originalSpeed
+	 * 		  true, если выдерживать записанные интервалы
+	 * @param a_metricsReport
+	 * 		  Файл отчёта MetricsReport. Может быть null
+	 * @return код завершения приложения
+	 */
+	private Integer replay (File a_trace, boolean a_originalSpeed, String a_metricsReport)
+	{
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		Path standInRoot = null;
+		EventTraceReplayer replayer = null;
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			List<TracedEvent> events = EventTraceReplayer.read(a_trace);
+			standInRoot = Files.createTempDirectory("projectnamevalidator-replay");
+			replayer = new EventTraceReplayer(new ChangedNameValidator(workspace), workspace, standInRoot.toFile());
+			replayer.createStandInProjects(events, null);
+			int replayed = replayer.replay(events, a_originalSpeed);
+			System.out.println(String.format("Replayed %s of %s events", replayed, events.size()));
+			if (a_metricsReport != null) ValidationMetrics.getInstance().writeReport(a_metricsReport);
+			return IApplication.EXIT_OK;
+		}
+		catch (IOException | CoreException e)
+		{
+			System.err.println(e.getMessage());
+			return EXIT_ERROR;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return EXIT_ERROR;
+		}
+		finally
+		{
+			try
+			{
+				if (replayer != null) replayer.deleteStandInProjects(null);
+				if (standInRoot != null) deleteDirectory(standInRoot);
+			}
+			catch (IOException | CoreException e)
+			{
+				System.err.println(e.getMessage());
+			}
+			ErrorStatusHandler.endPass();
+		}
+	}
+	
+	/**
+	 * Удаляет каталог вместе с содержимым.
+	 * @param a_directory
+	 * 		  Каталог
+	 * @throws IOException
+	 */
+	private static void deleteDirectory (Path a_directory) throws IOException
+	{
+		if (!Files.exists(a_directory)) return;
+		Files.walkFileTree(a_directory, new SimpleFileVisitor<Path>()
+		{
+			@Override
+			public FileVisitResult visitFile (Path a_file, BasicFileAttributes a_attributes) throws IOException
+			{
+				Files.delete(a_file);
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult postVisitDirectory (Path a_dir, IOException a_exception) throws IOException
+			{
+				if (a_exception != null) throw a_exception;
+				Files.delete(a_dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+	
+	/**
+	 * Проверяет имена открытых и закрытых проектов рабочей
+	 * области и выводит результаты.
+	 * @param a_writer
+	 * 		  Объект, выводящий результаты
+	 * @param a_mismatchesOnly
+	 * 		  true, если выводить нужно только проекты с
+	 * 		  несовпадающими именами
+	 * @return количество найденных несовпадений
+	 * @throws IOException
+	 */
+	private int validate (ValidationResultWriter a_writer, boolean a_mismatchesOnly) throws IOException
+	{
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		ChangedNameValidator validator = new ChangedNameValidator(workspace);
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		int mismatches = 0;
+		a_writer.writeHeader();
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			for (IProject project : workspace.getRoot().getProjects())
+			{
+				if (m_stopped) break;
+				/*
+				 * Имя папки и признак исключения выводятся из того
+				 * же состояния проекта, по которому принято решение,
+				 * без повторного обращения к файловой системе:*/
+				long startTime = metrics.start();
+				ProjectState state = validator.captureState(project);
+				boolean mismatch = validator.hasProblemName(state);
+				metrics.record(Operation.VALIDATION, startTime);
+				if (mismatch) mismatches++;
+				else if (a_mismatchesOnly) continue;
+				a_writer.write(state.getName(), state.getFolderName(), state.isIgnored(), mismatch);
+			}
+		}
+		finally
+		{
+			ErrorStatusHandler.endPass();
+		}
+		a_writer.flush();
+		return mismatches;
+	}
+	
+	/**
+	 * Ищет в каталогах a_roots проекты, не входящие в рабочую
+	 * область, и выводит результаты проверки их имён. Имя
+	 * проекта читается из файла .project.
+	 * @param a_writer
+	 * 		  Объект, выводящий результаты
+	 * @param a_mismatchesOnly
+	 * 		  true, если выводить нужно только проекты с
+	 * 		  несовпадающими именами
+	 * @param a_roots
+	 * 		  Корневые каталоги
+	 * @param a_maxDepth
+	 * 		  Глубина поиска
+	 * @return количество найденных несовпадений
+	 * @throws IOException
+	 */
+	private int scan (ValidationResultWriter a_writer, boolean a_mismatchesOnly, List<Path> a_roots,
+					  int a_maxDepth) throws IOException
+	{
+		Set<Path> workspaceLocations = new HashSet<Path>();
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects())
+		{
+			IPath location = project.getLocation();
+			if (location != null) workspaceLocations.add(location.toFile().toPath().normalize());
+		}
+		ProjectNameRuleSet rules = ProjectNameRuleSet.getDefault();
+		AtomicInteger mismatches = new AtomicInteger();
+		IOException[] writeFailure = new IOException[1];
+		new ProjectFileScanner(a_maxDepth, new IProjectFileHandler()
+		{
+			@Override
+			public void found (Path a_folder, String a_projectName)
+			{
+				/*
+				 * Проекты рабочей области уже проверены:*/
+				if (m_stopped || workspaceLocations.contains(a_folder.normalize())) return;
+				boolean mismatch = rules.hasProblemName(a_projectName, a_folder);
+				if (mismatch) mismatches.incrementAndGet();
+				else if (a_mismatchesOnly) return;
+				synchronized (a_writer)
+				{
+					try
+					{
+						a_writer.write(a_projectName, a_folder.getFileName().toString(), false, mismatch);
+					}
+					catch (IOException e)
+					{
+						writeFailure[0] = e;
+					}
+				}
+			}
+			
+			@Override
+			public void failed (Path a_path, IOException a_exception)
+			{
+				System.err.println(a_path + ": " + a_exception.getMessage());
+			}
+		}).scan(a_roots, new NullProgressMonitor()
+		{
+			@Override
+			public boolean isCanceled ()
+			{
+				return m_stopped;
+			}
+		});
+		synchronized (a_writer)
+		{
+			if (writeFailure[0] != null) throw writeFailure[0];
+			a_writer.flush();
+		}
+		return mismatches.get();
+	}
+	
+	/**
+	 * @param a_output
+	 * 		  Путь к файлу вывода. Может быть null
+	 * @return поток вывода в файл a_output или в стандартный
+	 * поток вывода, если файл не задан
+	 * @throws IOException
+	 */
+	private Writer createWriter (String a_output) throws IOException
+	{
+		if (a_output == null)
+		{
+			/*
+			 * Стандартный поток вывода не закрывается:*/
+			return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+			{
+				@Override
+				public void close () throws IOException
+				{
+					flush();
+				}
+			};
+		}
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(a_output), StandardCharsets.UTF_8));
+	}
+	
+	@Override
+	public void stop ()
+	{
+		m_stopped = true;
+	}
+}
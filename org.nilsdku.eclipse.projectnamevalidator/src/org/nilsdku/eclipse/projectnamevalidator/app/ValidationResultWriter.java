@@ -0,0 +1,168 @@
+package org.nilsdku.eclipse.projectnamevalidator.app;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * Объект, построчно записывающий результаты проверки
+ * проектов в формате JSON Lines или CSV. Каждая строка
+ * записывается сразу после проверки проекта, результаты
+ * в памяти не накапливаются.
+ */
+public class ValidationResultWriter
+{
+	/**
+	 * Формат JSON Lines: один JSON-объект в строке.
+	 */
+	public static final String FORMAT_JSON_LINES = "jsonl";
+	
+	/**
+	 * Формат CSV с заголовком.
+	 */
+	public static final String FORMAT_CSV = "csv";
+	
+	/**
+	 * Количество строк, после записи которых буфер
+	 * сбрасывается в поток вывода.
+	 */
+	private static final int FLUSH_INTERVAL = 256;
+	
+	private Writer m_writer;
+	
+	private boolean m_csv;
+	
+	private int m_unflushedCount;
+	
+	/**
+	 * Конструктор класса ValidationResultWriter.
+	 * @param a_writer
+	 * 		  Поток вывода. NotNull
+	 * @param a_format
+	 * 		  Формат вывода: FORMAT_JSON_LINES или FORMAT_CSV
+	 */
+	public ValidationResultWriter (Writer a_writer, String a_format)
+	{
+		m_writer = Objects.requireNonNull(a_writer);
+		m_csv = FORMAT_CSV.equals(a_format);
+	}
+	
+	/**
+	 * Записывает заголовок, если он предусмотрен форматом.
+	 * @throws IOException
+	 */
+	public void writeHeader () throws IOException
+	{
+		if (m_csv) m_writer.write("project,folder,ignored,mismatch\n");
+	}
+	
+	/**
+	 * Записывает результат проверки одного проекта.
+	 * @param a_name
+	 * 		  Имя проекта
+	 * @param a_folderName
+	 * 		  Имя папки проекта. Может быть null
+	 * @param a_ignored
+	 * 		  true, если проект занесён в исключения
+	 * @param a_mismatch
+	 * 		  true, если имя проекта не совпадает с именем папки
+	 * @throws IOException
+	 */
+	public void write (String a_name, String a_folderName, boolean a_ignored, boolean a_mismatch)
+		throws IOException
+	{
+		if (m_csv)
+		{
+			m_writer.write(escapeCsv(a_name));
+			m_writer.write(',');
+			m_writer.write(escapeCsv(a_folderName));
+			m_writer.write(',');
+			m_writer.write(Boolean.toString(a_ignored));
+			m_writer.write(',');
+			m_writer.write(Boolean.toString(a_mismatch));
+		}
+		else
+		{
+			m_writer.write("{\"project\":");
+			m_writer.write(escapeJson(a_name));
+			m_writer.write(",\"folder\":");
+			m_writer.write(escapeJson(a_folderName));
+			m_writer.write(",\"ignored\":");
+			m_writer.write(Boolean.toString(a_ignored));
+			m_writer.write(",\"mismatch\":");
+			m_writer.write(Boolean.toString(a_mismatch));
+			m_writer.write('}');
+		}
+		m_writer.write('\n');
+		if (++m_unflushedCount >= FLUSH_INTERVAL)
+		{
+			m_writer.flush();
+			m_unflushedCount = 0;
+		}
+	}
+	
+	/**
+	 * Сбрасывает буфер в поток вывода.
+	 * @throws IOException
+	 */
+	public void flush () throws IOException
+	{
+		m_writer.flush();
+		m_unflushedCount = 0;
+	}
+	
+	/**
+	 * @param a_value
+	 * 		  Значение поля. Может быть null
+	 * @return значение, экранированное для CSV
+	 */
+	private static String escapeCsv (String a_value)
+	{
+		if (a_value == null) return "";
+		if (a_value.indexOf(',') < 0 && a_value.indexOf('"') < 0 && a_value.indexOf('\n') < 0 &&
+			a_value.indexOf('\r') < 0)
+		{
+			return a_value;
+		}
+		return '"' + a_value.replace("\"", "\"\"") + '"';
+	}
+	
+	/**
+	 * @param a_value
+	 * 		  Значение поля. Может быть null
+	 * @return строковый литерал JSON
+	 */
+	private static String escapeJson (String a_value)
+	{
+		if (a_value == null) return "null";
+		StringBuilder builder = new StringBuilder(a_value.length() + 2);
+		builder.append('"');
+		for (int i = 0; i < a_value.length(); i++)
+		{
+			char c = a_value.charAt(i);
+			switch (c)
+			{
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					if (c < 0x20) builder.append(String.format("\\u%04x", (int)c));
+					else builder.append(c);
+			}
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+}
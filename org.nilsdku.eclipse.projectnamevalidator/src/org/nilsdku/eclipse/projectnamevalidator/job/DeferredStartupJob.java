@@ -0,0 +1,96 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.Objects;
+
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.StartupEventBuffer;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.main.Startup;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.nilsdku.eclipse.projectnamevalidator.property.IgnoreListStore;
+import org.nilsdku.eclipse.projectnamevalidator.trace.EventTraceRecorder;
+import org.nilsdku.eclipse.projectnamevalidator.ui.ProblemNameDialogOpener;
+import org.nilsdku.eclipse.projectnamevalidator.ui.UiThreadWatchdog;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Задание, выполняющее вне потока запуска всю работу,
+ * которую раньше выполнял Startup.earlyStartup: создание
+ * ChangedNameValidator и набора правил, загрузку списка
+ * исключений, регистрацию MBean, восстановление маркеров,
+ * запуск проверки существующих проектов и наблюдения за
+ * папками. События, полученные
+ * до запуска задания, передаются проверке из
+ * StartupEventBuffer.
+ */
+public class DeferredStartupJob extends Job
+{
+	private IWorkspace m_workspace;
+	
+	private StartupEventBuffer m_eventBuffer;
+	
+	/**
+	 * Конструктор класса DeferredStartupJob.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @param a_eventBuffer
+	 * 		  Слушатель, зарегистрированный при запуске. NotNull
+	 */
+	public DeferredStartupJob (IWorkspace a_workspace, StartupEventBuffer a_eventBuffer)
+	{
+		super(Messages.Job_Deferred_Startup);
+		m_workspace = Objects.requireNonNull(a_workspace);
+		m_eventBuffer = Objects.requireNonNull(a_eventBuffer);
+		setSystem(true);
+		setPriority(Job.DECORATE);
+	}
+	
+	@Override
+	protected IStatus run (IProgressMonitor a_monitor)
+	{
+		ValidationMetrics.getInstance().registerMBean();
+		EventTraceRecorder.startIfEnabled(m_workspace);
+		UiThreadWatchdog.getInstance().start();
+		ChangedNameValidator validator = new ChangedNameValidator(m_workspace);
+		validator.setWarningDialogOpener(new ProblemNameDialogOpener(validator));
+		
+		/*
+		 * Список исключений загружается и переносится до
+		 * установки слушателя, чтобы не читать хранилище при
+		 * обработке событий:*/
+		try
+		{
+			IgnoreListStore.getInstance(m_workspace).load();
+		}
+		catch (CoreException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+		
+		/*
+		 * Постоянный слушатель добавляется до удаления
+		 * временного, поэтому события не теряются; проекты,
+		 * попавшие в оба слушателя, объединяются в очереди
+		 * проверки:*/
+		validator.addChangedNameListener();
+		m_workspace.removeResourceChangeListener(m_eventBuffer);
+		m_eventBuffer.drainTo(validator);
+		
+		validator.restoreMarkers();
+		String bundleName = FrameworkUtil.getBundle(getClass()).getSymbolicName();
+		String mode = Platform.getPreferencesService().getString(bundleName, Startup.PREFERENCE_STARTUP_MODE,
+																 Startup.STARTUP_MODE_IDLE, null);
+		if (Startup.STARTUP_MODE_IMMEDIATE.equals(mode)) validator.validateExistingProjectNames();
+		else validator.validateExistingProjectNamesWhenIdle();
+		validator.addProjectFolderWatcher();
+		return Status.OK_STATUS;
+	}
+}
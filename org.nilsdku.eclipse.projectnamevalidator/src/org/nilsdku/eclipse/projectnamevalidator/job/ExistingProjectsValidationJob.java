@@ -0,0 +1,304 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.log.InfoStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+
+/**
+ * Задание проверки имён уже существующих в рабочей
+ * области проектов.
+ * Проекты распределяются между потоками ограниченного
+ * пула, каждый из которых на время проверки проекта
+ * захватывает правило планирования только этого
+ * проекта, а не всей рабочей области. Маркеры всех
+ * проектов обновляются по окончании проверки одной
+ * операцией над рабочей областью. Проекты, проверенные
+ * за это время по событиям изменения ресурсов, при этом
+ * пропускаются: более позднее решение о маркере не
+ * перезаписывается устаревшим результатом проверки.
+ */
+public class ExistingProjectsValidationJob extends WorkspaceJob
+{
+	/**
+	 * Максимальное количество потоков, проверяющих проекты.
+	 */
+	private static final int MAX_WORKER_COUNT = 4;
+	
+	/**
+	 * Интервал (в миллисекундах), с которым обновляется
+	 * прогресс и проверяется отмена задания.
+	 */
+	private static final long PROGRESS_INTERVAL = 100;
+	
+	private ChangedNameValidator m_validator;
+	
+	private IProject[] m_projects;
+	
+	/**
+	 * Конструктор класса ExistingProjectsValidationJob.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 * @param a_projects
+	 * 		  Проекты для проверки. NotNull
+	 */
+	public ExistingProjectsValidationJob (ChangedNameValidator a_validator, IProject[] a_projects)
+	{
+		super(Messages.Job_Existing_Projects_Validation);
+		m_validator = Objects.requireNonNull(a_validator);
+		m_projects = Objects.requireNonNull(a_projects);
+		setPriority(Job.LONG);
+	}
+	
+	@Override
+	public IStatus runInWorkspace (IProgressMonitor a_monitor) throws CoreException
+	{
+		/*
+		 * Ошибки обновления маркеров сообщаются одним
+		 * статусом, ошибки проверки - статусом каждого потока
+		 * пула:*/
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			return validateProjects(a_monitor);
+		}
+		finally
+		{
+			ErrorStatusHandler.endPass();
+		}
+	}
+	
+	/**
+	 * Проверяет имена проектов и обновляет их маркеры.
+	 * @param a_monitor
+	 * 		  Монитор прогресса
+	 * @return статус выполнения задания
+	 * @throws CoreException
+	 */
+	private IStatus validateProjects (IProgressMonitor a_monitor) throws CoreException
+	{
+		long startTime = System.nanoTime();
+		Predicate<IProject> current = ChangedNameValidator.captureValidationStamps(Arrays.asList(m_projects));
+		SubMonitor monitor = SubMonitor.convert(a_monitor, Messages.Job_Existing_Projects_Validation, 10);
+		SubMonitor scanMonitor = monitor.newChild(8).setWorkRemaining(m_projects.length);
+		int workerCount = getWorkerCount();
+		ExecutorService executor = Executors.newFixedThreadPool(workerCount, createThreadFactory());
+		CountDownLatch finished = new CountDownLatch(workerCount);
+		AtomicInteger validated = new AtomicInteger();
+		AtomicBoolean canceled = new AtomicBoolean();
+		Queue<IProject> problemProjects = new ConcurrentLinkedQueue<IProject>();
+		Queue<IProject> validProjects = new ConcurrentLinkedQueue<IProject>();
+		try
+		{
+			for (int i = 0; i < workerCount; i++)
+			{
+				executor.execute(createWorker(i, workerCount, problemProjects, validProjects, validated,
+											  canceled, finished));
+			}
+			int reported = 0;
+			while (!awaitWorkers(finished))
+			{
+				if (scanMonitor.isCanceled()) canceled.set(true);
+				int current = validated.get();
+				scanMonitor.worked(current - reported);
+				reported = current;
+			}
+			scanMonitor.worked(validated.get() - reported);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		if (canceled.get()) return Status.CANCEL_STATUS;
+		
+		/*
+		 * Маркеры всех проверенных проектов обновляются одной
+		 * операцией над рабочей областью:*/
+		ProblemNameMarkerManager.updateMarkers(problemProjects, validProjects, current, monitor.newChild(2));
+		logClosedProblemProjects(problemProjects);
+		
+		long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		InfoStatusHandler.log(String.format(Messages.Job_Existing_Projects_Validation_Time,
+											validated.get(), time));
+		return Status.OK_STATUS;
+	}
+	
+	/**
+	 * @return количество потоков, между которыми будут
+	 * распределены проекты
+	 */
+	private int getWorkerCount ()
+	{
+		int processors = Runtime.getRuntime().availableProcessors();
+		int workerCount = Math.min(processors, MAX_WORKER_COUNT);
+		return Math.max(1, Math.min(workerCount, m_projects.length));
+	}
+	
+	/**
+	 * Ожидает завершения потоков в течение интервала
+	 * обновления прогресса.
+	 * @param a_finished
+	 * 		  Счётчик незавершённых потоков
+	 * @return true, если все потоки завершены, false -
+	 * иначе
+	 */
+	private boolean awaitWorkers (CountDownLatch a_finished)
+	{
+		try
+		{
+			return a_finished.await(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+	}
+	
+	/**
+	 * Создаёт задачу, проверяющую каждый a_workerCount-й
+	 * проект, начиная с проекта с индексом a_workerIndex.
+	 * @param a_workerIndex
+	 * 		  Номер потока
+	 * @param a_workerCount
+	 * 		  Количество потоков
+	 * @param a_problemProjects
+	 * 		  Очередь проектов, на которые необходимо поставить
+	 * 		  маркер
+	 * @param a_validProjects
+	 * 		  Очередь проектов, с которых необходимо удалить
+	 * 		  маркер
+	 * @param a_validated
+	 * 		  Счётчик проверенных проектов
+	 * @param a_canceled
+	 * 		  Признак отмены задания
+	 * @param a_finished
+	 * 		  Счётчик незавершённых потоков
+	 * @return задача для выполнения в пуле потоков
+	 */
+	private Runnable createWorker (int a_workerIndex, int a_workerCount, Queue<IProject> a_problemProjects,
+								   Queue<IProject> a_validProjects, AtomicInteger a_validated,
+								   AtomicBoolean a_canceled, CountDownLatch a_finished)
+	{
+		return new Runnable()
+		{
+			@Override
+			public void run ()
+			{
+				/*
+				 * Проход проверки привязан к потоку, поэтому
+				 * ошибки каждого потока пула собираются в его
+				 * собственный проход:*/
+				ErrorStatusHandler.beginPass();
+				try
+				{
+					for (int i = a_workerIndex; i < m_projects.length && !a_canceled.get(); i += a_workerCount)
+					{
+						validateProject(m_projects[i], a_problemProjects, a_validProjects);
+						a_validated.incrementAndGet();
+					}
+				}
+				finally
+				{
+					ErrorStatusHandler.endPass();
+					a_finished.countDown();
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Проверяет имя проекта, захватывая на время проверки
+	 * правило планирования этого проекта, и добавляет
+	 * проект в одну из очередей в зависимости от результата.
+	 * @param a_project
+	 * 		  Проект для проверки
+	 * @param a_problemProjects
+	 * 		  Очередь проектов, на которые необходимо поставить
+	 * 		  маркер
+	 * @param a_validProjects
+	 * 		  Очередь проектов, с которых необходимо удалить
+	 * 		  маркер
+	 */
+	private void validateProject (IProject a_project, Queue<IProject> a_problemProjects,
+								  Queue<IProject> a_validProjects)
+	{
+		Job.getJobManager().beginRule(a_project, null);
+		try
+		{
+			/*
+			 * Закрытые проекты тоже проверяются: имя их папки
+			 * известно без открытия проекта, но маркер на них
+			 * поставить нельзя:*/
+			if (m_validator.hasProblemName(a_project)) a_problemProjects.add(a_project);
+			else a_validProjects.add(a_project);
+		}
+		finally
+		{
+			Job.getJobManager().endRule(a_project);
+		}
+	}
+	
+	/**
+	 * Логирует имена закрытых проектов, имена которых не
+	 * совпадают с именами их папок.
+	 * @param a_problemProjects
+	 * 		  Проекты с несовпадающими именами
+	 */
+	private void logClosedProblemProjects (Collection<IProject> a_problemProjects)
+	{
+		StringBuilder names = new StringBuilder();
+		int count = 0;
+		for (IProject project : a_problemProjects)
+		{
+			if (project.isOpen()) continue;
+			if (count++ > 0) names.append(", ");
+			names.append(project.getName());
+		}
+		if (count > 0) InfoStatusHandler.log(String.format(Messages.Info_Closed_Project_Mismatches, count, names));
+	}
+	
+	/**
+	 * @return фабрика потоков-демонов с понятными
+	 * при отладке именами
+	 */
+	private ThreadFactory createThreadFactory ()
+	{
+		return new ThreadFactory()
+		{
+			private final AtomicInteger m_threadNumber = new AtomicInteger();
+			
+			@Override
+			public Thread newThread (Runnable a_runnable)
+			{
+				Thread thread = new Thread(a_runnable, getName() + " #" + m_threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+}
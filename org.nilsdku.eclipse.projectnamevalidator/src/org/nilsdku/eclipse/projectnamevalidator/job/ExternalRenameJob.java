@@ -0,0 +1,158 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.log.InfoStatusHandler;
+
+/**
+ * Задание, обновляющее состояние проектов, папки которых
+ * были переименованы или удалены вне среды разработки, и
+ * ставящее эти проекты в очередь на повторную проверку.
+ * Проект, папка которого переименована, перенаправляется
+ * на новую папку без перемещения содержимого, после чего
+ * проверка сообщает о несовпадении имён и предлагает его
+ * устранить. О проекте, папка которого удалена и не
+ * найдена, сообщается в журнале.
+ */
+public class ExternalRenameJob extends WorkspaceJob
+{
+	private ChangedNameValidator m_validator;
+	
+	private List<IProject> m_projects;
+	
+	private Map<IProject, Path> m_renamedFolders;
+	
+	/**
+	 * Конструктор класса ExternalRenameJob.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 * @param a_projects
+	 * 		  Проекты, папки которых изменились. NotNull
+	 * @param a_renamedFolders
+	 * 		  Новые папки проектов, папки которых переименованы.
+	 * 		  NotNull
+	 */
+	public ExternalRenameJob (ChangedNameValidator a_validator, Collection<IProject> a_projects,
+							  Map<IProject, Path> a_renamedFolders)
+	{
+		super(Messages.Job_External_Rename);
+		m_validator = Objects.requireNonNull(a_validator);
+		m_projects = new ArrayList<IProject>(a_projects);
+		m_renamedFolders = new HashMap<IProject, Path>(a_renamedFolders);
+		setSystem(true);
+		setRule(createRule());
+	}
+	
+	/**
+	 * @return правило планирования, объединяющее правила
+	 * обновления всех проектов и перемещения проектов,
+	 * папки которых переименованы
+	 */
+	private ISchedulingRule createRule ()
+	{
+		ISchedulingRule rule = null;
+		for (IProject project : m_projects)
+		{
+			IWorkspace workspace = project.getWorkspace();
+			if (m_renamedFolders.containsKey(project))
+			{
+				rule = MultiRule.combine(rule, workspace.getRuleFactory().moveRule(project, project));
+			}
+			rule = MultiRule.combine(rule, workspace.getRuleFactory().refreshRule(project));
+		}
+		return rule;
+	}
+	
+	@Override
+	public IStatus runInWorkspace (IProgressMonitor a_monitor) throws CoreException
+	{
+		SubMonitor monitor = SubMonitor.convert(a_monitor, m_projects.size() * 2);
+		List<IProject> relocatedProjects = new ArrayList<IProject>();
+		List<IProject> changedProjects = new ArrayList<IProject>();
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			for (IProject project : m_projects)
+			{
+				if (monitor.isCanceled()) return Status.CANCEL_STATUS;
+				try
+				{
+					if (!project.exists()) continue;
+					if (relocate(project, monitor.newChild(1)))
+					{
+						relocatedProjects.add(project);
+						continue;
+					}
+					IPath location = project.getLocation();
+					if (project.isOpen() && location != null && !location.toFile().exists())
+					{
+						InfoStatusHandler.log(String.format(Messages.Info_Project_Folder_Missing,
+															project.getName(), location.toOSString()));
+					}
+					project.refreshLocal(IResource.DEPTH_ZERO, monitor.newChild(1));
+					changedProjects.add(project);
+				}
+				catch (CoreException e)
+				{
+					ErrorStatusHandler.log(e, e.getMessage());
+				}
+			}
+		}
+		finally
+		{
+			ErrorStatusHandler.endPass();
+		}
+		if (!changedProjects.isEmpty()) m_validator.scheduleValidation(changedProjects, false);
+		if (!relocatedProjects.isEmpty()) m_validator.scheduleValidation(relocatedProjects, true);
+		return Status.OK_STATUS;
+	}
+	
+	/**
+	 * Перенаправляет проект на папку, в которую была
+	 * переименована его папка, не перемещая содержимое.
+	 * @param a_project
+	 * 		  Проект
+	 * @param a_monitor
+	 * 		  Монитор прогресса
+	 * @return true, если проект перенаправлен
+	 * @throws CoreException
+	 */
+	private boolean relocate (IProject a_project, IProgressMonitor a_monitor) throws CoreException
+	{
+		Path folder = m_renamedFolders.get(a_project);
+		IPath location = a_project.getLocation();
+		if (folder == null || !a_project.isOpen() || location == null) return false;
+		/*
+		 * Папку могли вернуть на место до запуска задания:*/
+		if (location.toFile().exists() || !folder.toFile().isDirectory()) return false;
+		IPath newLocation = org.eclipse.core.runtime.Path.fromOSString(folder.toString());
+		IProjectDescription description = a_project.getDescription();
+		description.setLocation(newLocation);
+		a_project.move(description, IResource.FORCE | IResource.REPLACE, a_monitor);
+		InfoStatusHandler.log(String.format(Messages.Info_Project_Folder_Moved, a_project.getName(),
+											location.toOSString(), newLocation.toOSString()));
+		return true;
+	}
+}
@@ -0,0 +1,46 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.Objects;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.watch.ProjectFolderWatcher;
+
+/**
+ * Задание, приводящее набор каталогов, наблюдаемых
+ * ProjectFolderWatcher, в соответствие с открытыми
+ * проектами. Регистрация каталогов в WatchService
+ * обращается к файловой системе, поэтому выполняется вне
+ * потока уведомления об изменении ресурсов. Повторное
+ * планирование ещё не запущенного задания ничего не
+ * делает, поэтому серия изменений проектов обрабатывается
+ * одним запуском.
+ */
+public class FolderWatchUpdateJob extends Job
+{
+	private ProjectFolderWatcher m_watcher;
+	
+	/**
+	 * Конструктор класса FolderWatchUpdateJob.
+	 * @param a_watcher
+	 * 		  Объект наблюдения за папками проектов. NotNull
+	 */
+	public FolderWatchUpdateJob (ProjectFolderWatcher a_watcher)
+	{
+		super(Messages.Job_Folder_Watch_Update);
+		m_watcher = Objects.requireNonNull(a_watcher);
+		setSystem(true);
+		setPriority(Job.DECORATE);
+	}
+	
+	@Override
+	protected IStatus run (IProgressMonitor a_monitor)
+	{
+		if (a_monitor.isCanceled()) return Status.CANCEL_STATUS;
+		m_watcher.updateWatchedFolders();
+		return Status.OK_STATUS;
+	}
+}
@@ -0,0 +1,172 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.IJobManager;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.core.runtime.preferences.IPreferencesService;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.main.Startup;
+import org.nilsdku.eclipse.projectnamevalidator.scan.ProjectFileScanner;
+import org.nilsdku.eclipse.projectnamevalidator.ui.VisibleProjectsCollector;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Задание, откладывающее проверку имён существующих
+ * проектов до момента, когда в рабочей области не
+ * выполняются сборка и другие пользовательские задания.
+ * Сначала проверяются проекты, видимые пользователю,
+ * затем, с низким приоритетом, все остальные. Если
+ * задана настройка Startup.PREFERENCE_SCAN_ROOTS, после
+ * этого запускается поиск проектов, не импортированных в
+ * рабочую область.
+ */
+public class IdleStartupJob extends Job
+{
+	/**
+	 * Интервал (в миллисекундах) между проверками занятости
+	 * рабочей области.
+	 */
+	private static final long IDLE_CHECK_DELAY = 2000;
+	
+	/**
+	 * Максимальное время (в миллисекундах) ожидания
+	 * освобождения рабочей области, по истечении которого
+	 * проверка запускается в любом случае.
+	 */
+	private static final long MAX_IDLE_WAIT = TimeUnit.MINUTES.toMillis(5);
+	
+	private ChangedNameValidator m_validator;
+	
+	private long m_firstRunTime;
+	
+	/**
+	 * Конструктор класса IdleStartupJob.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 */
+	public IdleStartupJob (ChangedNameValidator a_validator)
+	{
+		super(Messages.Job_Existing_Projects_Validation);
+		m_validator = Objects.requireNonNull(a_validator);
+		setSystem(true);
+		setPriority(Job.DECORATE);
+	}
+	
+	@Override
+	protected IStatus run (IProgressMonitor a_monitor)
+	{
+		long now = System.currentTimeMillis();
+		if (m_firstRunTime == 0) m_firstRunTime = now;
+		if (isWorkspaceBusy() && now - m_firstRunTime < MAX_IDLE_WAIT)
+		{
+			schedule(IDLE_CHECK_DELAY);
+			return Status.OK_STATUS;
+		}
+		if (a_monitor.isCanceled()) return Status.CANCEL_STATUS;
+		
+		IProject[] projects = m_validator.getProjectsToValidate();
+		Set<IProject> visibleProjects = new VisibleProjectsCollector().collect();
+		List<IProject> priorityProjects = new ArrayList<IProject>();
+		List<IProject> otherProjects = new ArrayList<IProject>();
+		for (IProject project : projects)
+		{
+			if (visibleProjects.contains(project)) priorityProjects.add(project);
+			else otherProjects.add(project);
+		}
+		Job otherJob = new ExistingProjectsValidationJob(m_validator,
+														 otherProjects.toArray(new IProject[otherProjects.size()]));
+		otherJob.setPriority(Job.DECORATE);
+		Job scanJob = createScanJob();
+		if (scanJob != null)
+		{
+			otherJob.addJobChangeListener(new JobChangeAdapter()
+			{
+				@Override
+				public void done (IJobChangeEvent a_event)
+				{
+					if (a_event.getResult().getSeverity() != IStatus.CANCEL) scanJob.schedule();
+				}
+			});
+		}
+		if (priorityProjects.isEmpty())
+		{
+			otherJob.schedule();
+			return Status.OK_STATUS;
+		}
+		Job priorityJob = new ExistingProjectsValidationJob(m_validator,
+															priorityProjects.toArray(new IProject[priorityProjects.size()]));
+		priorityJob.setPriority(Job.SHORT);
+		priorityJob.addJobChangeListener(new JobChangeAdapter()
+		{
+			@Override
+			public void done (IJobChangeEvent a_event)
+			{
+				if (a_event.getResult().getSeverity() != IStatus.CANCEL) otherJob.schedule();
+			}
+		});
+		priorityJob.schedule();
+		return Status.OK_STATUS;
+	}
+	
+	/**
+	 * @return задание поиска проектов, не импортированных в
+	 * рабочую область, или null, если каталоги для поиска не
+	 * заданы настройкой Startup.PREFERENCE_SCAN_ROOTS
+	 */
+	private Job createScanJob ()
+	{
+		String bundleName = FrameworkUtil.getBundle(getClass()).getSymbolicName();
+		IPreferencesService preferences = Platform.getPreferencesService();
+		String scanRoots = preferences.getString(bundleName, Startup.PREFERENCE_SCAN_ROOTS, "", null);
+		List<Path> roots = new ArrayList<Path>();
+		for (String root : scanRoots.split(Pattern.quote(File.pathSeparator)))
+		{
+			if (!root.trim().isEmpty()) roots.add(Paths.get(root.trim()));
+		}
+		if (roots.isEmpty()) return null;
+		int depth = preferences.getInt(bundleName, Startup.PREFERENCE_SCAN_DEPTH,
+									   ProjectFileScanner.DEFAULT_MAX_DEPTH, null);
+		return new UnimportedProjectsScanJob(m_validator.getWorkspace(), m_validator.getRules(), roots, depth);
+	}
+	
+	/**
+	 * @return true, если в рабочей области выполняется или
+	 * ожидает выполнения сборка либо выполняется другое
+	 * пользовательское задание, false - иначе
+	 */
+	private boolean isWorkspaceBusy ()
+	{
+		IJobManager jobManager = Job.getJobManager();
+		for (Job job : jobManager.find(ResourcesPlugin.FAMILY_AUTO_BUILD))
+		{
+			if (job.getState() != Job.SLEEPING) return true;
+		}
+		for (Job job : jobManager.find(ResourcesPlugin.FAMILY_MANUAL_BUILD))
+		{
+			if (job.getState() != Job.SLEEPING) return true;
+		}
+		for (Job job : jobManager.find(null))
+		{
+			if (job != this && !job.isSystem() && job.getState() == Job.RUNNING) return true;
+		}
+		return false;
+	}
+}
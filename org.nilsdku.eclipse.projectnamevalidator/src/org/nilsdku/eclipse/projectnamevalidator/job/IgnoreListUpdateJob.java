@@ -0,0 +1,76 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.property.IgnoreListStore;
+
+/**
+ * Задание, заносящее проекты в исключения или удаляющее
+ * их из исключений одной записью в хранилище
+ * IgnoreListStore и затем повторно проверяющее эти
+ * проекты. Маркеры всех проектов обновляются в рамках
+ * одной операции над рабочей областью.
+ */
+public class IgnoreListUpdateJob extends WorkspaceJob
+{
+	private ChangedNameValidator m_validator;
+	
+	private Map<IProject, Boolean> m_values;
+	
+	/**
+	 * Конструктор класса IgnoreListUpdateJob.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 * @param a_values
+	 * 		  Проекты и признаки их занесения в исключения.
+	 * 		  NotNull
+	 */
+	public IgnoreListUpdateJob (ChangedNameValidator a_validator, Map<IProject, Boolean> a_values)
+	{
+		super(Messages.Job_Ignore_List_Update);
+		m_validator = Objects.requireNonNull(a_validator);
+		m_values = new LinkedHashMap<IProject, Boolean>(a_values);
+		/*
+		 * Правило планирования не задаётся: изменение
+		 * маркеров его не требует, запись в хранилище
+		 * синхронизирована IgnoreListStore, а проверки
+		 * проектов упорядочиваются блокировкой
+		 * ProblemNameMarkerManager.getLock:*/
+		setRule(null);
+	}
+	
+	@Override
+	public IStatus runInWorkspace (IProgressMonitor a_monitor) throws CoreException
+	{
+		SubMonitor monitor = SubMonitor.convert(a_monitor, Messages.Job_Ignore_List_Update, m_values.size() + 1);
+		IgnoreListStore.getInstance(m_validator.getWorkspace()).setAll(m_values);
+		monitor.worked(1);
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			for (IProject project : m_values.keySet())
+			{
+				if (monitor.isCanceled()) return Status.CANCEL_STATUS;
+				if (project.isOpen()) m_validator.validateProjectName(project, false);
+				monitor.worked(1);
+			}
+		}
+		finally
+		{
+			ErrorStatusHandler.endPass();
+		}
+		return Status.OK_STATUS;
+	}
+}
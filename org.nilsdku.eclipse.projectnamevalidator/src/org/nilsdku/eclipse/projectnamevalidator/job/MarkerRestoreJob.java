@@ -0,0 +1,60 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+
+/**
+ * Задание, восстанавливающее при запуске несохраняемые
+ * маркеры проблемного имени по снимку ValidationSnapshot
+ * без повторной проверки имён проектов.
+ */
+public class MarkerRestoreJob extends WorkspaceJob
+{
+	private IWorkspace m_workspace;
+	
+	private List<IProject> m_problemProjects;
+	
+	private Predicate<IProject> m_current;
+	
+	/**
+	 * Конструктор класса MarkerRestoreJob.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @param a_problemProjects
+	 * 		  Проекты, на которых по снимку стоял маркер. NotNull
+	 * @param a_current
+	 * 		  Условие актуальности снимка для проекта: маркер не
+	 * 		  восстанавливается на проекте, проверенном после
+	 * 		  планирования задания. NotNull
+	 */
+	public MarkerRestoreJob (IWorkspace a_workspace, Collection<IProject> a_problemProjects,
+							 Predicate<IProject> a_current)
+	{
+		super(Messages.Job_Marker_Restore);
+		m_workspace = Objects.requireNonNull(a_workspace);
+		m_problemProjects = new ArrayList<IProject>(a_problemProjects);
+		m_current = Objects.requireNonNull(a_current);
+		setSystem(true);
+		setRule(m_workspace.getRuleFactory().markerRule(m_workspace.getRoot()));
+	}
+	
+	@Override
+	public IStatus runInWorkspace (IProgressMonitor a_monitor) throws CoreException
+	{
+		ProblemNameMarkerManager.restoreMarkers(m_workspace, m_problemProjects, m_current, a_monitor);
+		return Status.OK_STATUS;
+	}
+}
@@ -0,0 +1,159 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+
+/**
+ * Задание, устраняющее несовпадение имён нескольких
+ * проектов и их папок: переименовывает проекты по именам
+ * их папок или папки по именам проектов.
+ * Все перемещения выполняются в рамках одной операции над
+ * рабочей областью, поэтому сборка запускается один раз
+ * после завершения задания, а не после каждого проекта.
+ */
+public class ProblemNameFixJob extends WorkspaceJob
+{
+	private List<IProject> m_projects;
+	
+	private boolean m_renameFolders;
+	
+	/**
+	 * Конструктор класса ProblemNameFixJob.
+	 * @param a_projects
+	 * 		  Проекты, имена которых не совпадают с именами их
+	 * 		  папок. NotNull
+	 * @param a_renameFolders
+	 * 		  true, если переименовывать нужно папки, false -
+	 * 		  если проекты
+	 */
+	public ProblemNameFixJob (List<IProject> a_projects, boolean a_renameFolders)
+	{
+		super(Messages.Job_Problem_Name_Fix);
+		m_projects = new ArrayList<IProject>(a_projects);
+		m_renameFolders = a_renameFolders;
+		setRule(createRule());
+		setUser(true);
+	}
+	
+	/**
+	 * @return правило планирования, объединяющее правила
+	 * перемещения всех проектов
+	 */
+	private ISchedulingRule createRule ()
+	{
+		ISchedulingRule rule = null;
+		for (IProject project : m_projects)
+		{
+			IWorkspace workspace = project.getWorkspace();
+			IResource destination = project;
+			if (!m_renameFolders)
+			{
+				IPath location = project.getLocation();
+				if (location == null || location.lastSegment() == null) continue;
+				destination = workspace.getRoot().getProject(location.lastSegment());
+			}
+			rule = MultiRule.combine(rule, workspace.getRuleFactory().moveRule(project, destination));
+		}
+		return rule;
+	}
+	
+	@Override
+	public IStatus runInWorkspace (IProgressMonitor a_monitor) throws CoreException
+	{
+		SubMonitor monitor = SubMonitor.convert(a_monitor, Messages.Job_Problem_Name_Fix, m_projects.size());
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			for (IProject project : m_projects)
+			{
+				if (monitor.isCanceled()) return Status.CANCEL_STATUS;
+				monitor.subTask(project.getName());
+				try
+				{
+					if (m_renameFolders) renameFolder(project, monitor.newChild(1));
+					else renameProject(project, monitor.newChild(1));
+				}
+				catch (CoreException e)
+				{
+					ErrorStatusHandler.log(e, e.getMessage());
+				}
+			}
+		}
+		finally
+		{
+			ErrorStatusHandler.endPass();
+		}
+		return Status.OK_STATUS;
+	}
+	
+	/**
+	 * Переименовывает проект по имени его папки, не
+	 * перемещая содержимое.
+	 * @param a_project
+	 * 		  Проект
+	 * @param a_monitor
+	 * 		  Монитор прогресса
+	 * @throws CoreException
+	 */
+	private void renameProject (IProject a_project, IProgressMonitor a_monitor) throws CoreException
+	{
+		IPath location = a_project.getLocation();
+		if (!a_project.isOpen() || location == null) return;
+		String newName = location.lastSegment();
+		if (newName == null || newName.equals(a_project.getName())) return;
+		IWorkspace workspace = a_project.getWorkspace();
+		IStatus nameStatus = workspace.validateName(newName, IResource.PROJECT);
+		if (!nameStatus.isOK()) throw new CoreException(nameStatus);
+		if (workspace.getRoot().getProject(newName).exists())
+		{
+			ErrorStatusHandler.log(null, String.format(Messages.Exception_Fix_Target_Exists,
+													   a_project.getName(), newName));
+			return;
+		}
+		IProjectDescription description = a_project.getDescription();
+		description.setName(newName);
+		a_project.move(description, IResource.FORCE | IResource.SHALLOW, a_monitor);
+	}
+	
+	/**
+	 * Переименовывает папку проекта по имени проекта,
+	 * перемещая её содержимое.
+	 * @param a_project
+	 * 		  Проект
+	 * @param a_monitor
+	 * 		  Монитор прогресса
+	 * @throws CoreException
+	 */
+	private void renameFolder (IProject a_project, IProgressMonitor a_monitor) throws CoreException
+	{
+		IPath location = a_project.getLocation();
+		if (!a_project.isOpen() || location == null) return;
+		if (a_project.getName().equals(location.lastSegment())) return;
+		IPath newLocation = location.removeLastSegments(1).append(a_project.getName());
+		if (newLocation.toFile().exists())
+		{
+			ErrorStatusHandler.log(null, String.format(Messages.Exception_Fix_Target_Exists,
+													   location.toOSString(), newLocation.toOSString()));
+			return;
+		}
+		IProjectDescription description = a_project.getDescription();
+		description.setLocation(newLocation);
+		a_project.move(description, IResource.FORCE, a_monitor);
+	}
+}
@@ -0,0 +1,108 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+
+/**
+ * Задание, проверяющее имена проектов из очереди.
+ * Проекты добавляются в очередь слушателем изменения
+ * ресурсов, который сам проверку не выполняет. Повторные
+ * добавления одного и того же проекта до начала его
+ * проверки объединяются.
+ */
+public class ProjectValidationJob extends Job
+{
+	/**
+	 * Семейство заданий проверки, по которому можно
+	 * дождаться их завершения.
+	 */
+	public static final Object FAMILY = ProjectValidationJob.class;
+	
+	private ChangedNameValidator m_validator;
+	
+	/**
+	 * Очередь проектов для проверки. Значение определяет,
+	 * нужно ли показывать пользователю диалоговое окно с
+	 * предупреждением.
+	 */
+	private Map<IProject, Boolean> m_queue = new LinkedHashMap<IProject, Boolean>();
+	
+	/**
+	 * Конструктор класса ProjectValidationJob.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 */
+	public ProjectValidationJob (ChangedNameValidator a_validator)
+	{
+		super(Messages.Job_Project_Validation);
+		m_validator = Objects.requireNonNull(a_validator);
+		setSystem(true);
+		setPriority(Job.SHORT);
+	}
+	
+	/**
+	 * Добавляет проекты в очередь и планирует выполнение
+	 * задания.
+	 * @param a_projects
+	 * 		  Проекты для проверки. NotNull
+	 * @param a_createWarningDialog
+	 * 		  Параметр, определяющий нужно ли создавать диалоговое
+	 * 		  окно с предупреждением в случае несовпадения имени
+	 * 		  проекта и имени его папки
+	 */
+	public void enqueue (Collection<IProject> a_projects, boolean a_createWarningDialog)
+	{
+		if (a_projects.isEmpty()) return;
+		synchronized (m_queue)
+		{
+			for (IProject project : a_projects)
+			{
+				Boolean createWarningDialog = m_queue.get(project);
+				m_queue.put(project, (createWarningDialog != null && createWarningDialog) || a_createWarningDialog);
+			}
+		}
+		schedule();
+	}
+	
+	@Override
+	public boolean belongsTo (Object a_family)
+	{
+		return a_family == FAMILY;
+	}
+	
+	@Override
+	protected IStatus run (IProgressMonitor a_monitor)
+	{
+		Map<IProject, Boolean> projects;
+		synchronized (m_queue)
+		{
+			projects = new LinkedHashMap<IProject, Boolean>(m_queue);
+			m_queue.clear();
+		}
+		ErrorStatusHandler.beginPass();
+		try
+		{
+			for (Map.Entry<IProject, Boolean> entry : projects.entrySet())
+			{
+				IProject project = entry.getKey();
+				if (project.isOpen()) m_validator.validateProjectName(project, entry.getValue());
+			}
+		}
+		finally
+		{
+			ErrorStatusHandler.endPass();
+		}
+		return Status.OK_STATUS;
+	}
+}
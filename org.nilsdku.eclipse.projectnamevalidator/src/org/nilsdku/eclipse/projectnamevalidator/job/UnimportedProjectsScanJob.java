@@ -0,0 +1,108 @@
+package org.nilsdku.eclipse.projectnamevalidator.job;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.InfoStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.rule.ProjectNameRuleSet;
+import org.nilsdku.eclipse.projectnamevalidator.scan.IProjectFileHandler;
+import org.nilsdku.eclipse.projectnamevalidator.scan.ProjectFileScanner;
+
+/**
+ * Задание, ищущее в заданных каталогах проекты, не
+ * импортированные в рабочую область, и проверяющее их
+ * имена сканером ProjectFileScanner. Маркер на такие
+ * проекты поставить нельзя, поэтому несовпадения
+ * логируются одним сообщением. Задание планируется
+ * IdleStartupJob, если задана настройка
+ * Startup.PREFERENCE_SCAN_ROOTS.
+ */
+public class UnimportedProjectsScanJob extends Job
+{
+	private IWorkspace m_workspace;
+	
+	private ProjectNameRuleSet m_rules;
+	
+	private List<Path> m_roots;
+	
+	private int m_maxDepth;
+	
+	/**
+	 * Конструктор класса UnimportedProjectsScanJob.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @param a_rules
+	 * 		  Набор правил проверки имён. NotNull
+	 * @param a_roots
+	 * 		  Корневые каталоги поиска. NotNull
+	 * @param a_maxDepth
+	 * 		  Глубина поиска
+	 */
+	public UnimportedProjectsScanJob (IWorkspace a_workspace, ProjectNameRuleSet a_rules, List<Path> a_roots,
+									  int a_maxDepth)
+	{
+		super(Messages.Job_Unimported_Projects_Scan);
+		m_workspace = Objects.requireNonNull(a_workspace);
+		m_rules = Objects.requireNonNull(a_rules);
+		m_roots = new ArrayList<Path>(a_roots);
+		m_maxDepth = a_maxDepth;
+		setSystem(true);
+		setPriority(Job.DECORATE);
+	}
+	
+	@Override
+	protected IStatus run (IProgressMonitor a_monitor)
+	{
+		Set<Path> workspaceLocations = new HashSet<Path>();
+		for (IProject project : m_workspace.getRoot().getProjects())
+		{
+			IPath location = project.getLocation();
+			if (location != null) workspaceLocations.add(location.toFile().toPath().normalize());
+		}
+		Queue<String> mismatches = new ConcurrentLinkedQueue<String>();
+		new ProjectFileScanner(m_maxDepth, new IProjectFileHandler()
+		{
+			@Override
+			public void found (Path a_folder, String a_projectName)
+			{
+				/*
+				 * Проекты рабочей области проверяются
+				 * ExistingProjectsValidationJob:*/
+				if (a_monitor.isCanceled() || workspaceLocations.contains(a_folder.normalize())) return;
+				if (m_rules.hasProblemName(a_projectName, a_folder))
+				{
+					mismatches.add(a_projectName + " (" + a_folder + ")");
+				}
+			}
+			
+			@Override
+			public void failed (Path a_path, IOException a_exception)
+			{
+				InfoStatusHandler.log(String.format(Messages.Info_Unimported_Project_Scan_Failure, a_path,
+													a_exception.getMessage()));
+			}
+		}).scan(m_roots, a_monitor);
+		if (a_monitor.isCanceled()) return Status.CANCEL_STATUS;
+		if (!mismatches.isEmpty())
+		{
+			InfoStatusHandler.log(String.format(Messages.Info_Unimported_Project_Mismatches, mismatches.size(),
+												String.join(", ", mismatches)));
+		}
+		return Status.OK_STATUS;
+	}
+}
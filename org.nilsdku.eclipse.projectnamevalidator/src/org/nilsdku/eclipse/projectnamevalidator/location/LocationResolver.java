@@ -0,0 +1,325 @@
+package org.nilsdku.eclipse.projectnamevalidator.location;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.log.InfoStatusHandler;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Объект, определяющий имя папки проекта. Для проектов в
+ * локальной файловой системе имя берётся из IProject.getLocation
+ * без обращения к диску. Для проектов на других файловых
+ * системах EFS имя определяется по getLocationURI в потоках
+ * ограниченного пула с ограничением времени на каждый проект.
+ * Если файловая система не ответила вовремя, обращения к
+ * ней пропускаются в течение SLOW_SCHEME_BACKOFF
+ * миллисекунд, чтобы одна медленная файловая система не
+ * задерживала проверку остальных проектов. Потоки, уже
+ * ожидающие ответа этой файловой системы или своей
+ * очереди к ней, прекращают ожидание, как только она
+ * признана медленной. Одна файловая система не может
+ * занять больше MAX_PENDING_PER_SCHEME потоков пула,
+ * поэтому обращения к остальным файловым системам не
+ * ждут за ней в очереди. Общее время ожидания одного
+ * проекта не превышает времени ожидания из настройки.
+ */
+public class LocationResolver
+{
+	/**
+	 * Ключ настройки, задающей время ожидания (в
+	 * миллисекундах) определения имени папки одного проекта.
+	 */
+	public static final String PREFERENCE_TIMEOUT = "locationResolutionTimeout";
+	
+	/**
+	 * Время ожидания по умолчанию (в миллисекундах).
+	 */
+	private static final long DEFAULT_TIMEOUT = 2000;
+	
+	/**
+	 * Время (в миллисекундах), в течение которого не
+	 * выполняются обращения к не ответившей файловой системе.
+	 */
+	private static final long SLOW_SCHEME_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+	
+	private static final int MAX_THREAD_COUNT = 4;
+	
+	private static final int MAX_QUEUE_SIZE = 64;
+	
+	/**
+	 * Максимальное количество одновременных обращений к
+	 * одной файловой системе.
+	 */
+	private static final int MAX_PENDING_PER_SCHEME = MAX_THREAD_COUNT / 2;
+	
+	/**
+	 * Интервал (в миллисекундах), с которым ожидающий поток
+	 * проверяет, не признана ли файловая система медленной
+	 * другим потоком.
+	 */
+	private static final long BACKOFF_CHECK_INTERVAL = 50;
+	
+	private static LocationResolver s_default;
+	
+	private ExecutorService m_executor;
+	
+	private long m_timeout;
+	
+	/**
+	 * Схемы URI файловых систем, не ответивших вовремя, и
+	 * моменты, до которых обращения к ним пропускаются.
+	 */
+	private Map<String, Long> m_slowSchemes = new ConcurrentHashMap<String, Long>();
+	
+	/**
+	 * Разрешения на обращение к файловым системам по схемам
+	 * URI.
+	 */
+	private Map<String, Semaphore> m_schemePermits = new ConcurrentHashMap<String, Semaphore>();
+	
+	/**
+	 * Конструктор класса LocationResolver.
+	 * @param a_executor
+	 * 		  Пул потоков, в которых определяются имена папок.
+	 * 		  NotNull
+	 * @param a_timeout
+	 * 		  Время ожидания (в миллисекундах) для одного
+	 * 		  проекта
+	 */
+	public LocationResolver (ExecutorService a_executor, long a_timeout)
+	{
+		m_executor = Objects.requireNonNull(a_executor);
+		m_timeout = a_timeout;
+	}
+	
+	/**
+	 * @return объект, использующий общий пул потоков плагина
+	 * и время ожидания из настройки PREFERENCE_TIMEOUT
+	 */
+	public static synchronized LocationResolver getDefault ()
+	{
+		if (s_default == null)
+		{
+			long timeout = DEFAULT_TIMEOUT;
+			if (Platform.isRunning())
+			{
+				String bundleName = FrameworkUtil.getBundle(LocationResolver.class).getSymbolicName();
+				timeout = Platform.getPreferencesService().getLong(bundleName, PREFERENCE_TIMEOUT,
+																   DEFAULT_TIMEOUT, null);
+			}
+			s_default = new LocationResolver(createExecutor(), timeout);
+		}
+		return s_default;
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @return имя папки проекта или null, если расположение
+	 * проекта неизвестно или не было определено за отведённое
+	 * время
+	 */
+	public String getFolderName (IProject a_project)
+	{
+		IPath location = a_project.getLocation();
+		if (location != null) return location.lastSegment();
+		URI uri = a_project.getLocationURI();
+		if (uri == null) return null;
+		String scheme = String.valueOf(uri.getScheme());
+		if (isInBackoff(scheme)) return null;
+		Semaphore permits = m_schemePermits.computeIfAbsent(scheme, new Function<String, Semaphore>()
+		{
+			@Override
+			public Semaphore apply (String a_scheme)
+			{
+				return new Semaphore(MAX_PENDING_PER_SCHEME);
+			}
+		});
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_timeout);
+		/*
+		 * Разрешение возвращается ровно один раз: задачей,
+		 * если она запущена, или ожидающим потоком, если
+		 * задача отменена до запуска:*/
+		AtomicBoolean started = new AtomicBoolean();
+		Future<String> future = null;
+		try
+		{
+			while (!permits.tryAcquire(nextWait(deadline), TimeUnit.NANOSECONDS))
+			{
+				/*
+				 * Файловая система ещё не ответила на предыдущие
+				 * обращения, проект будет проверен позже:*/
+				if (isInBackoff(scheme) || deadline - System.nanoTime() <= 0) return null;
+			}
+			try
+			{
+				future = m_executor.submit(new Callable<String>()
+				{
+					@Override
+					public String call () throws Exception
+					{
+						if (!started.compareAndSet(false, true)) return null;
+						try
+						{
+							return EFS.getStore(uri).getName();
+						}
+						finally
+						{
+							permits.release();
+						}
+					}
+				});
+			}
+			catch (RejectedExecutionException e)
+			{
+				/*
+				 * Очередь заполнена заданиями для медленных
+				 * файловых систем, проект будет проверен позже:*/
+				permits.release();
+				return null;
+			}
+			while (true)
+			{
+				try
+				{
+					return future.get(nextWait(deadline), TimeUnit.NANOSECONDS);
+				}
+				catch (TimeoutException e)
+				{
+					if (deadline - System.nanoTime() <= 0) throw e;
+					if (!isInBackoff(scheme)) continue;
+					/*
+					 * Другой поток уже признал файловую систему
+					 * медленной:*/
+					cancel(future, started, permits);
+					return null;
+				}
+			}
+		}
+		catch (TimeoutException e)
+		{
+			cancel(future, started, permits);
+			m_slowSchemes.put(scheme, System.currentTimeMillis() + SLOW_SCHEME_BACKOFF);
+			InfoStatusHandler.log(String.format(Messages.Info_Location_Timeout, a_project.getName(), uri, m_timeout));
+			return null;
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			ErrorStatusHandler.log((cause instanceof Exception) ? (Exception)cause : e, e.getMessage());
+			return null;
+		}
+		catch (InterruptedException e)
+		{
+			if (future != null) cancel(future, started, permits);
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+	
+	/**
+	 * @param a_scheme
+	 * 		  Схема URI файловой системы
+	 * @return true, если обращения к файловой системе
+	 * пропускаются, так как она не ответила вовремя
+	 */
+	private boolean isInBackoff (String a_scheme)
+	{
+		Long backoffEnd = m_slowSchemes.get(a_scheme);
+		if (backoffEnd == null) return false;
+		if (System.currentTimeMillis() < backoffEnd) return true;
+		m_slowSchemes.remove(a_scheme, backoffEnd);
+		return false;
+	}
+	
+	/**
+	 * @param a_deadline
+	 * 		  Момент окончания ожидания по System.nanoTime
+	 * @return время (в наносекундах) до следующей проверки
+	 * признания файловой системы медленной
+	 */
+	private static long nextWait (long a_deadline)
+	{
+		long remaining = Math.max(0, a_deadline - System.nanoTime());
+		return Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(BACKOFF_CHECK_INTERVAL));
+	}
+	
+	/**
+	 * Отменяет обращение к файловой системе и, если задача
+	 * ещё не запущена, возвращает её разрешение.
+	 * @param a_future
+	 * 		  Результат задачи
+	 * @param a_started
+	 * 		  Признак запуска задачи
+	 * @param a_permits
+	 * 		  Разрешения на обращение к файловой системе
+	 */
+	private static void cancel (Future<String> a_future, AtomicBoolean a_started, Semaphore a_permits)
+	{
+		a_future.cancel(true);
+		if (a_started.compareAndSet(false, true)) a_permits.release();
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @return путь к папке проекта с разделителем "/" или
+	 * null, если расположение проекта неизвестно. Файловая
+	 * система при этом не используется
+	 */
+	public static String getLocationPath (IProject a_project)
+	{
+		IPath location = a_project.getLocation();
+		if (location != null) return location.toString();
+		URI uri = a_project.getLocationURI();
+		return (uri != null) ? uri.getPath() : null;
+	}
+	
+	/**
+	 * @return ограниченный пул потоков-демонов с ограниченной
+	 * очередью
+	 */
+	private static ExecutorService createExecutor ()
+	{
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREAD_COUNT, MAX_THREAD_COUNT,
+															 30, TimeUnit.SECONDS,
+															 new ArrayBlockingQueue<Runnable>(MAX_QUEUE_SIZE),
+															 new ThreadFactory()
+		{
+			private final AtomicInteger m_threadNumber = new AtomicInteger();
+			
+			@Override
+			public Thread newThread (Runnable a_runnable)
+			{
+				Thread thread = new Thread(a_runnable, "Project location resolver #" + m_threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -1,19 +1,90 @@
 package org.nilsdku.eclipse.projectnamevalidator.log;
 
-import org.eclipse.core.internal.runtime.Activator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.statushandlers.StatusManager;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.osgi.framework.FrameworkUtil;
 
 /**
  * Обработчик статуса IStatus.ERROR.
+ * Ошибки, возникшие в потоке между вызовами beginPass и
+ * endPass в этом же потоке, не сообщаются по отдельности,
+ * а собираются в один MultiStatus; повторяющиеся причины
+ * объединяются. Ошибки других потоков в проход не
+ * попадают и сообщаются обычным образом.
+ * Окно с ошибкой показывается пользователю не чаще,
+ * чем раз в SHOW_INTERVAL миллисекунд, остальные ошибки
+ * только логируются.
  */
-@SuppressWarnings("restriction")
 public class ErrorStatusHandler
 {
+	/**
+	 * Идентификатор плагина, указываемый в статусах.
+	 */
+	public static final String PLUGIN_ID = FrameworkUtil.getBundle(ErrorStatusHandler.class).getSymbolicName();
+	
+	/**
+	 * Символическое имя пакета пользовательского интерфейса
+	 * рабочей среды.
+	 */
+	private static final String UI_BUNDLE_NAME = "org.eclipse.ui";
+	
+	/**
+	 * Минимальный интервал (в миллисекундах) между показами
+	 * окон с ошибками.
+	 */
+	private static final long SHOW_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+	
+	/**
+	 * Максимальное количество различных ошибок, собираемых
+	 * за один проход проверки.
+	 */
+	private static final int MAX_COLLECTED_ERRORS = 20;
+	
+	private static final Object s_lock = new Object();
+	
+	/**
+	 * Проход проверки текущего потока.
+	 */
+	private static final ThreadLocal<Pass> s_pass = new ThreadLocal<Pass>()
+	{
+		@Override
+		protected Pass initialValue ()
+		{
+			return new Pass();
+		}
+	};
+	
+	private static long s_lastShowTime;
+	
+	/**
+	 * Состояние прохода проверки одного потока.
+	 */
+	private static class Pass
+	{
+		private int m_depth;
+		
+		private Map<String, RepeatedError> m_errors = new LinkedHashMap<String, RepeatedError>();
+		
+		private int m_omittedCount;
+	}
+	
 	/**
 	 * Логирует передаваемые исключение и сообщение, а также
-	 * показывает их в окне пользователю.
+	 * показывает их в окне пользователю. Без пользовательского
+	 * интерфейса сообщение только логируется. Во время прохода
+	 * проверки ошибка сохраняется до вызова endPass.
 	 * @param a_exception
 	 * 		  Исключение
 	 * @param a_message
@@ -21,7 +92,133 @@ public class ErrorStatusHandler
 	 */
 	public static void log (Exception a_exception, String a_message)
 	{
-		IStatus status = new Status(IStatus.ERROR, Activator.PLUGIN_ID, a_message, a_exception);
-		StatusManager.getManager().handle(status, StatusManager.LOG | StatusManager.SHOW);
+		IStatus status = new Status(IStatus.ERROR, PLUGIN_ID, a_message, a_exception);
+		Pass pass = s_pass.get();
+		if (pass.m_depth > 0)
+		{
+			String key = getCauseKey(a_exception, a_message);
+			RepeatedError error = pass.m_errors.get(key);
+			if (error != null) error.repeat();
+			else if (pass.m_errors.size() < MAX_COLLECTED_ERRORS) pass.m_errors.put(key, new RepeatedError(status));
+			else pass.m_omittedCount++;
+			return;
+		}
+		s_pass.remove();
+		report(status);
+	}
+	
+	/**
+	 * Начинает проход проверки в текущем потоке. Проходы
+	 * могут быть вложенными; ошибки сообщаются после
+	 * завершения внешнего из них. Проходы разных потоков
+	 * независимы.
+	 */
+	public static void beginPass ()
+	{
+		s_pass.get().m_depth++;
+	}
+	
+	/**
+	 * Завершает проход проверки текущего потока. Если проход
+	 * был внешним, собранные ошибки сообщаются одним
+	 * статусом.
+	 */
+	public static void endPass ()
+	{
+		Pass pass = s_pass.get();
+		if (pass.m_depth > 1)
+		{
+			pass.m_depth--;
+			return;
+		}
+		/*
+		 * Потоки пулов живут долго, поэтому состояние
+		 * завершённого прохода не хранится:*/
+		s_pass.remove();
+		if (pass.m_errors.isEmpty()) return;
+		List<RepeatedError> errors = new ArrayList<RepeatedError>(pass.m_errors.values());
+		int omittedCount = pass.m_omittedCount;
+		int total = omittedCount;
+		for (RepeatedError error : errors) total += error.getCount();
+		MultiStatus status = new MultiStatus(PLUGIN_ID, 0,
+											 String.format(Messages.Error_Validation_Pass, total), null);
+		for (RepeatedError error : errors)
+		{
+			IStatus first = error.getStatus();
+			if (error.getCount() == 1) status.add(first);
+			else
+			{
+				status.add(new Status(IStatus.ERROR, first.getPlugin(),
+									  String.format(Messages.Error_Repeated, first.getMessage(), error.getCount()),
+									  first.getException()));
+			}
+		}
+		if (omittedCount > 0)
+		{
+			status.add(new Status(IStatus.ERROR, PLUGIN_ID,
+								  String.format(Messages.Error_Omitted, omittedCount)));
+		}
+		report(status);
+	}
+	
+	/**
+	 * Логирует статус и, если позволяет ограничение частоты,
+	 * показывает его пользователю.
+	 * @param a_status
+	 * 		  Статус
+	 */
+	private static void report (IStatus a_status)
+	{
+		if (!isWorkbenchRunning())
+		{
+			Platform.getLog(FrameworkUtil.getBundle(ErrorStatusHandler.class)).log(a_status);
+			return;
+		}
+		int style = StatusManager.LOG;
+		long now = System.currentTimeMillis();
+		synchronized (s_lock)
+		{
+			if (now - s_lastShowTime >= SHOW_INTERVAL)
+			{
+				s_lastShowTime = now;
+				style |= StatusManager.SHOW;
+			}
+		}
+		StatusManager.getManager().handle(a_status, style);
+	}
+	
+	/**
+	 * @param a_exception
+	 * 		  Исключение
+	 * @param a_message
+	 * 		  Сообщение
+	 * @return ключ, одинаковый для ошибок с одной причиной.
+	 * Для CoreException причина определяется пакетом и кодом
+	 * статуса, а не сообщением, которое обычно содержит путь
+	 * к ресурсу
+	 */
+	private static String getCauseKey (Exception a_exception, String a_message)
+	{
+		if (a_exception instanceof CoreException)
+		{
+			IStatus status = ((CoreException)a_exception).getStatus();
+			Throwable cause = status.getException();
+			return a_exception.getClass().getName() + ':' + status.getPlugin() + ':' + status.getCode() +
+				   ((cause != null) ? ':' + cause.getClass().getName() : "");
+		}
+		return ((a_exception != null) ? a_exception.getClass().getName() : "") + ':' + a_message;
+	}
+	
+	/**
+	 * @return true, если пакет пользовательского интерфейса
+	 * установлен и рабочая среда запущена, false - иначе
+	 * (например, при запуске HeadlessValidationApplication)
+	 */
+	static boolean isWorkbenchRunning ()
+	{
+		/*
+		 * Класс PlatformUI загружается только при наличии
+		 * пакета org.eclipse.ui:*/
+		return Platform.getBundle(UI_BUNDLE_NAME) != null && PlatformUI.isWorkbenchRunning();
 	}
 }
@@ -0,0 +1,40 @@
+package org.nilsdku.eclipse.projectnamevalidator.log;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ui.statushandlers.StatusManager;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Обработчик статуса IStatus.INFO.
+ */
+public class InfoStatusHandler
+{
+	/**
+	 * Логирует передаваемое сообщение, не показывая
+	 * его пользователю.
+	 * @param a_message
+	 * 		  Сообщение
+	 */
+	public static void log (String a_message)
+	{
+		log(a_message, null);
+	}
+	
+	/**
+	 * Логирует передаваемые сообщение и исключение, не
+	 * показывая их пользователю.
+	 * @param a_message
+	 * 		  Сообщение
+	 * @param a_exception
+	 * 		  Исключение, например, снимок стека потока. Может
+	 * 		  быть null
+	 */
+	public static void log (String a_message, Throwable a_exception)
+	{
+		IStatus status = new Status(IStatus.INFO, ErrorStatusHandler.PLUGIN_ID, a_message, a_exception);
+		if (ErrorStatusHandler.isWorkbenchRunning()) StatusManager.getManager().handle(status, StatusManager.LOG);
+		else Platform.getLog(FrameworkUtil.getBundle(InfoStatusHandler.class)).log(status);
+	}
+}
@@ -0,0 +1,48 @@
+package org.nilsdku.eclipse.projectnamevalidator.log;
+
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Ошибка, собранная в рамках прохода проверки, и
+ * количество её повторений.
+ */
+class RepeatedError
+{
+	private IStatus m_status;
+	
+	private int m_count = 1;
+	
+	/**
+	 * Конструктор класса RepeatedError.
+	 * @param a_status
+	 * 		  Статус первого появления ошибки
+	 */
+	RepeatedError (IStatus a_status)
+	{
+		m_status = a_status;
+	}
+	
+	/**
+	 * Увеличивает количество повторений ошибки.
+	 */
+	void repeat ()
+	{
+		m_count++;
+	}
+	
+	/**
+	 * @return статус первого появления ошибки
+	 */
+	IStatus getStatus ()
+	{
+		return m_status;
+	}
+	
+	/**
+	 * @return количество появлений ошибки
+	 */
+	int getCount ()
+	{
+		return m_count;
+	}
+}
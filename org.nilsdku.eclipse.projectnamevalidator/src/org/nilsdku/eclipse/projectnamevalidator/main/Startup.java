@@ -1,7 +1,11 @@
 package org.nilsdku.eclipse.projectnamevalidator.main;
 
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.ui.IStartup;
-import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.StartupEventBuffer;
+import org.nilsdku.eclipse.projectnamevalidator.job.DeferredStartupJob;
 
 /**
  * Класс, содержащий метод, вызываемый после запуска
@@ -10,16 +14,63 @@ import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
 public class Startup implements IStartup
 {
 	/**
-	 * Создаёт объект класса ChangedNameValidator и
-	 * вызывает его методы для проверки имён проектов,
-	 * существующих в Workspace, и для установки
-	 * слушателя изменения имени проекта.
+	 * Ключ настройки, определяющей режим проверки имён
+	 * проектов при запуске.
+	 */
+	public static final String PREFERENCE_STARTUP_MODE = "startupValidationMode";
+	
+	/**
+	 * Режим, в котором проверка запускается немедленно.
+	 */
+	public static final String STARTUP_MODE_IMMEDIATE = "immediate";
+	
+	/**
+	 * Режим, в котором проверка откладывается до окончания
+	 * сборки и других заданий рабочей области. Используется
+	 * по умолчанию.
+	 */
+	public static final String STARTUP_MODE_IDLE = "idle";
+	
+	/**
+	 * Ключ настройки, определяющей, нужно ли отслеживать
+	 * переименование папок проектов вне среды разработки.
+	 * По умолчанию равна true. Изменение настройки вступает в
+	 * силу без перезапуска.
+	 */
+	public static final String PREFERENCE_WATCH_FOLDERS = "watchProjectFolders";
+	
+	/**
+	 * Ключ настройки, содержащей каталоги, разделённые
+	 * File.pathSeparator, в которых после проверки
+	 * существующих проектов ищутся проекты, не
+	 * импортированные в рабочую область. По умолчанию пуста,
+	 * и поиск не выполняется.
+	 */
+	public static final String PREFERENCE_SCAN_ROOTS = "unimportedProjectScanRoots";
+	
+	/**
+	 * Ключ настройки, задающей глубину поиска проектов, не
+	 * импортированных в рабочую область.
+	 */
+	public static final String PREFERENCE_SCAN_DEPTH = "unimportedProjectScanDepth";
+	
+	/**
+	 * Регистрирует лёгкий слушатель StartupEventBuffer и
+	 * планирует задание DeferredStartupJob, которое создаёт
+	 * ChangedNameValidator, восстанавливает маркеры, запускает
+	 * проверку имён проектов, существующих в Workspace, в
+	 * режиме, определяемом настройкой PREFERENCE_STARTUP_MODE,
+	 * и, если настройка PREFERENCE_WATCH_FOLDERS не отключена,
+	 * наблюдение за папками проектов. Классы проверки и
+	 * пользовательского интерфейса загружаются этим заданием
+	 * или при первом обращении к ним.
 	 */
 	@Override
 	public void earlyStartup ()
 	{
-		ChangedNameValidator validator = new ChangedNameValidator();
-		validator.validateExistingProjectNames();
-		validator.addChangedNameListener();
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		StartupEventBuffer eventBuffer = new StartupEventBuffer();
+		workspace.addResourceChangeListener(eventBuffer, IResourceChangeEvent.POST_CHANGE);
+		new DeferredStartupJob(workspace, eventBuffer).schedule();
 	}
 }
@@ -1,24 +1,76 @@
 package org.nilsdku.eclipse.projectnamevalidator.marker;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.ProjectState;
 import org.nilsdku.eclipse.projectnamevalidator.ProjectValidator;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
 
 /**
  * Класс для управления процессами создания и удаления
  * маркера.
+ * Маркеры имеют собственный тип MARKER_TYPE, производный
+ * от IMarker.PROBLEM, поэтому поиск и удаление выполняются
+ * по типу без просмотра атрибутов других проблемных
+ * маркеров. Тип не сохраняется вместе с рабочей областью:
+ * при запуске маркеры восстанавливаются по снимку
+ * ValidationSnapshot методом restoreMarkers.
+ * Наличие маркера проверяется и маркер создаётся под
+ * блокировкой ресурса, поэтому одновременные проверки
+ * не создают дубликатов, а найденные дубликаты удаляются.
  */
 public class ProblemNameMarkerManager
 {
+	/**
+	 * Тип маркера проблемного имени проекта.
+	 */
+	public static final String MARKER_TYPE = "org.nilsdku.eclipse.projectnamevalidator.problemNameMarker";
+	
 	public static final String MARKER_ATTRIBUTE_PROBLEM_NAME = "MARKER_ATTRIBUTE_PROBLEM_NAME";
 	
 	public static final String MARKER_ATTRIBUTE_VALUE_PROBLEM_NAME = "problemName";
 	
+	/**
+	 * Количество блокировок, между которыми распределяются
+	 * ресурсы.
+	 */
+	private static final int LOCK_STRIPE_COUNT = 32;
+	
+	/**
+	 * Блокировки, под которыми проверяется наличие маркера
+	 * и создаётся новый маркер, а также принимается решение
+	 * об изменении маркера (см. getLock). Правило
+	 * планирования изменения маркеров не исключает
+	 * одновременную работу нескольких потоков с одним
+	 * ресурсом, поэтому без блокировки два потока могли бы
+	 * создать по маркеру. Операции над рабочей областью
+	 * начинаются под блокировкой, но не наоборот: внутри
+	 * IWorkspace.run блокировка рабочей области не
+	 * удерживается при выполнении IWorkspaceRunnable.
+	 */
+	private static final Object[] LOCK_STRIPES = new Object[LOCK_STRIPE_COUNT];
+	
+	static
+	{
+		for (int i = 0; i < LOCK_STRIPE_COUNT; i++) LOCK_STRIPES[i] = new Object();
+	}
+	
 	private IResource m_resource;
 	
 	private ProjectValidator m_projectValidator;
@@ -35,27 +87,254 @@ public class ProblemNameMarkerManager
 		m_projectValidator = new ProjectValidator(m_resource);
 	}
 	
+	/**
+	 * @param a_resource
+	 * 		  Ресурс. NotNull
+	 * @return блокировка, под которой изменяются маркеры
+	 * ресурса. Проверка проекта и пакетные операции над
+	 * маркерами захватывают её, чтобы сверка актуальности
+	 * решения и запись маркера выполнялись атомарно
+	 */
+	public static Object getLock (IResource a_resource)
+	{
+		return LOCK_STRIPES[(a_resource.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPE_COUNT];
+	}
+	
 	/**
 	 * Создаёт проблемный маркер, указывающий на неверное
 	 * имя ресурса, если данный маркер ещё не был создан.
+	 * Маркер создаётся вместе со всеми атрибутами в рамках
+	 * одной операции над рабочей областью.
 	 * @return true - если маркер был создан, false -
 	 * иначе 
 	 * @throws CoreException
 	 */
 	public boolean createMarker () throws CoreException
 	{
-		if (!m_projectValidator.isProjectOpen() || markerExists()) return false;
-		IMarker marker = m_resource.createMarker(IMarker.PROBLEM);
-		marker.setAttribute(MARKER_ATTRIBUTE_PROBLEM_NAME, MARKER_ATTRIBUTE_VALUE_PROBLEM_NAME);
-		IPath location = m_resource.getLocation();
-		if (location != null)
+		if (!m_projectValidator.isProjectOpen()) return false;
+		return runCreateMarker(m_resource);
+	}
+	
+	/**
+	 * Создаёт маркер на проекте снимка a_state, если проект
+	 * был открыт и маркер на нём не найден.
+	 * @param a_state
+	 * 		  Снимок состояния проекта, созданный с поиском
+	 * 		  маркера. NotNull
+	 * @return true - если маркер был создан, false -
+	 * иначе
+	 * @throws CoreException
+	 */
+	public static boolean createMarker (ProjectState a_state) throws CoreException
+	{
+		if (!a_state.isOpen() || a_state.getMarker() != null) return false;
+		return runCreateMarker(a_state.getProject());
+	}
+	
+	/**
+	 * Создаёт маркер, если его нет, в рамках одной операции
+	 * над рабочей областью.
+	 * @param a_resource
+	 * 		  Ресурс, к которому будет привязан маркер
+	 * @return true - если маркер был создан, false -
+	 * иначе
+	 * @throws CoreException
+	 */
+	private static boolean runCreateMarker (IResource a_resource) throws CoreException
+	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		IWorkspace workspace = a_resource.getWorkspace();
+		boolean[] created = new boolean[1];
+		workspace.run(new IWorkspaceRunnable()
 		{
-			marker.setAttribute(IMarker.LOCATION, location.toString());
+			@Override
+			public void run (IProgressMonitor a_monitor) throws CoreException
+			{
+				created[0] = ensureMarker(a_resource);
+			}
+		}, workspace.getRuleFactory().markerRule(a_resource), IWorkspace.AVOID_UPDATE, null);
+		if (created[0]) metrics.record(Operation.MARKER_CREATION, startTime);
+		return created[0];
+	}
+	
+	/**
+	 * Под блокировкой ресурса создаёт маркер, если на
+	 * ресурсе нет маркера, или удаляет лишние маркеры,
+	 * если их несколько. Вызывается внутри операции над
+	 * рабочей областью.
+	 * @param a_resource
+	 * 		  Ресурс открытого проекта
+	 * @return true - если маркер был создан, false -
+	 * иначе
+	 * @throws CoreException
+	 */
+	private static boolean ensureMarker (IResource a_resource) throws CoreException
+	{
+		synchronized (getLock(a_resource))
+		{
+			IMarker[] markers = findMarkers(a_resource);
+			if (markers.length == 0)
+			{
+				createMarker(a_resource);
+				return true;
+			}
+			for (int i = 1; i < markers.length; i++) markers[i].delete();
+			return false;
 		}
-		marker.setAttribute(IMarker.MESSAGE, Messages.Marker_Attribute_Message_Value);
-		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
-		marker.setAttribute(IMarker.USER_EDITABLE, false);
-		return true;
+	}
+	
+	/**
+	 * Создаёт на ресурсе a_resource проблемный маркер и
+	 * устанавливает все его атрибуты за один вызов.
+	 * @param a_resource
+	 * 		  Ресурс, к которому будет привязан маркер
+	 * @throws CoreException
+	 */
+	private static void createMarker (IResource a_resource) throws CoreException
+	{
+		IMarker marker = a_resource.createMarker(MARKER_TYPE);
+		IPath location = a_resource.getLocation();
+		/*
+		 * Атрибут со значением null не устанавливается:*/
+		marker.setAttributes(new String[] {MARKER_ATTRIBUTE_PROBLEM_NAME, IMarker.LOCATION, IMarker.MESSAGE,
+										   IMarker.SEVERITY, IMarker.USER_EDITABLE},
+							 new Object[] {MARKER_ATTRIBUTE_VALUE_PROBLEM_NAME,
+										   (location != null) ? location.toString() : null,
+										   Messages.Marker_Attribute_Message_Value, IMarker.SEVERITY_ERROR, false});
+	}
+	
+	/**
+	 * Создаёт проблемные маркеры на проектах a_problemProjects
+	 * и удаляет их с проектов a_validProjects.
+	 * Все изменения выполняются в рамках одной операции над
+	 * рабочей областью, поэтому об их завершении рассылается
+	 * одно уведомление об изменении ресурсов.
+	 * @param a_problemProjects
+	 * 		  Проекты, имена которых не совпадают с именами их
+	 * 		  папок. NotNull
+	 * @param a_validProjects
+	 * 		  Проекты, маркеры с которых необходимо удалить.
+	 * 		  NotNull
+	 * @param a_monitor
+	 * 		  Монитор прогресса. Может быть null
+	 * @throws CoreException
+	 */
+	public static void updateMarkers (Collection<? extends IProject> a_problemProjects,
+									  Collection<? extends IProject> a_validProjects,
+									  IProgressMonitor a_monitor) throws CoreException
+	{
+		updateMarkers(a_problemProjects, a_validProjects, null, a_monitor);
+	}
+	
+	/**
+	 * Создаёт проблемные маркеры на проектах a_problemProjects
+	 * и удаляет их с проектов a_validProjects, пропуская
+	 * проекты, решение для которых устарело. Условие
+	 * a_current проверяется и маркер изменяется под
+	 * блокировкой getLock проекта, под которой
+	 * ChangedNameValidator изменяет номер проверки и маркер,
+	 * поэтому более поздняя проверка проекта не может быть
+	 * перезаписана этой операцией.
+	 * @param a_problemProjects
+	 * 		  Проекты, имена которых не совпадают с именами их
+	 * 		  папок. NotNull
+	 * @param a_validProjects
+	 * 		  Проекты, маркеры с которых необходимо удалить.
+	 * 		  NotNull
+	 * @param a_current
+	 * 		  Условие актуальности решения для проекта или null,
+	 * 		  если все решения актуальны
+	 * @param a_monitor
+	 * 		  Монитор прогресса. Может быть null
+	 * @throws CoreException
+	 */
+	public static void updateMarkers (Collection<? extends IProject> a_problemProjects,
+									  Collection<? extends IProject> a_validProjects,
+									  Predicate<IProject> a_current, IProgressMonitor a_monitor)
+		throws CoreException
+	{
+		if (a_problemProjects.isEmpty() && a_validProjects.isEmpty()) return;
+		IProject anyProject = a_problemProjects.isEmpty() ? a_validProjects.iterator().next() :
+															a_problemProjects.iterator().next();
+		IWorkspace workspace = anyProject.getWorkspace();
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		int[] createdCount = new int[1];
+		/*
+		 * Изменение маркеров не требует правила
+		 * планирования, а изменения одного проекта
+		 * упорядочиваются блокировкой getLock:*/
+		workspace.run(new IWorkspaceRunnable()
+		{
+			@Override
+			public void run (IProgressMonitor a_runMonitor) throws CoreException
+			{
+				SubMonitor monitor = SubMonitor.convert(a_runMonitor,
+														a_problemProjects.size() + a_validProjects.size());
+				for (IProject project : a_problemProjects)
+				{
+					synchronized (getLock(project))
+					{
+						if (project.isOpen() && (a_current == null || a_current.test(project)) &&
+							ensureMarker(project))
+						{
+							createdCount[0]++;
+						}
+					}
+					monitor.worked(1);
+				}
+				for (IProject project : a_validProjects)
+				{
+					synchronized (getLock(project))
+					{
+						if (a_current == null || a_current.test(project))
+						{
+							new ProblemNameMarkerManager(project).deleteMarker();
+						}
+					}
+					monitor.worked(1);
+				}
+			}
+		}, null, IWorkspace.AVOID_UPDATE, a_monitor);
+		/*
+		 * Удаление маркеров учитывается методом deleteMarker,
+		 * длительность пакетной операции делится между
+		 * созданными маркерами:*/
+		metrics.record(Operation.MARKER_CREATION, startTime, createdCount[0]);
+	}
+	
+	/**
+	 * Создаёт маркеры на открытых проектах, для которых
+	 * снимок ValidationSnapshot хранит признак проблемы,
+	 * не проверяя имена заново, и удаляет сохранявшиеся
+	 * вместе с рабочей областью маркеры типа IMarker.PROBLEM,
+	 * созданные предыдущими версиями плагина.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @param a_problemProjects
+	 * 		  Проекты, на которых по снимку стоял маркер. NotNull
+	 * @param a_current
+	 * 		  Условие актуальности снимка для проекта. NotNull
+	 * @param a_monitor
+	 * 		  Монитор прогресса. Может быть null
+	 * @throws CoreException
+	 */
+	public static void restoreMarkers (IWorkspace a_workspace, Collection<? extends IProject> a_problemProjects,
+									   Predicate<IProject> a_current, IProgressMonitor a_monitor)
+		throws CoreException
+	{
+		IMarker[] markers = a_workspace.getRoot().findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_ONE);
+		List<IMarker> legacyMarkers = new ArrayList<IMarker>();
+		for (IMarker marker : markers)
+		{
+			if (marker.getAttribute(MARKER_ATTRIBUTE_PROBLEM_NAME, null) != null) legacyMarkers.add(marker);
+		}
+		if (!legacyMarkers.isEmpty())
+		{
+			a_workspace.deleteMarkers(legacyMarkers.toArray(new IMarker[legacyMarkers.size()]));
+		}
+		updateMarkers(a_problemProjects, Collections.<IProject>emptyList(), a_current, a_monitor);
 	}
 	
 	/**
@@ -66,13 +345,39 @@ public class ProblemNameMarkerManager
 	 */
 	public boolean deleteMarker () throws CoreException
 	{
-		IMarker marker = findMarker();
-		if (marker != null) 
-		{
-			marker.delete();
-			return true;
-		}
-		return false;
+		if (!markerExists()) return false;
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		m_resource.deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+		metrics.record(Operation.MARKER_DELETION, startTime);
+		return true;
+	}
+	
+	/**
+	 * Удаляет все маркеры типа MARKER_TYPE с проекта снимка
+	 * a_state. Если при создании снимка маркер не был
+	 * найден, наличие маркера проверяется повторно: его
+	 * могла создать пакетная операция после создания
+	 * снимка. Вызывается под блокировкой getLock проекта.
+	 * @param a_state
+	 * 		  Снимок состояния проекта, созданный с поиском
+	 * 		  маркера. NotNull
+	 * @return true - если маркер был удалён, false -
+	 * иначе
+	 * @throws CoreException
+	 */
+	public static boolean deleteMarker (ProjectState a_state) throws CoreException
+	{
+		IProject project = a_state.getProject();
+		if (a_state.getMarker() == null && (!project.isOpen() || findMarker(project) == null)) return false;
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		/*
+		 * Удаляются все маркеры типа, в том числе созданные
+		 * после создания снимка:*/
+		a_state.getProject().deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+		metrics.record(Operation.MARKER_DELETION, startTime);
+		return true;
 	}
 	
 	/**
@@ -87,23 +392,47 @@ public class ProblemNameMarkerManager
 	}
 	
 	/**
-	 * @return первый найденный на ресурсе проблемный
-	 * маркер, указывающий на неверное имя ресурса.
-	 * Может быть null.
+	 * @return первый найденный на ресурсе маркер типа
+	 * MARKER_TYPE. Может быть null.
 	 * @throws CoreException
 	 */
 	public IMarker findMarker () throws CoreException
 	{
 		if (!m_projectValidator.isProjectOpen()) return null;
-		IMarker[] markers = m_resource.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_ZERO);
-		for (IMarker marker : markers)
+		return findMarker(m_resource);
+	}
+	
+	/**
+	 * @param a_resource
+	 * 		  Ресурс открытого проекта. NotNull
+	 * @return первый найденный на ресурсе маркер типа
+	 * MARKER_TYPE. Может быть null.
+	 * @throws CoreException
+	 */
+	public static IMarker findMarker (IResource a_resource) throws CoreException
+	{
+		IMarker[] markers = findMarkers(a_resource);
+		return (markers.length > 0) ? markers[0] : null;
+	}
+	
+	/**
+	 * @param a_resource
+	 * 		  Ресурс открытого проекта. NotNull
+	 * @return все маркеры типа MARKER_TYPE на ресурсе
+	 * @throws CoreException
+	 */
+	private static IMarker[] findMarkers (IResource a_resource) throws CoreException
+	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		try
 		{
-			if (marker.getAttribute(MARKER_ATTRIBUTE_PROBLEM_NAME, null) != null)
-			{
-				return marker;
-			}
+			return a_resource.findMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+		}
+		finally
+		{
+			metrics.record(Operation.MARKER_LOOKUP, startTime);
 		}
-		return null;
 	}
 	
 	/**
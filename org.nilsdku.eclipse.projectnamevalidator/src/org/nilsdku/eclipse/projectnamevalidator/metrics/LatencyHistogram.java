@@ -0,0 +1,117 @@
+package org.nilsdku.eclipse.projectnamevalidator.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей операции. Длительности
+ * распределяются по интервалам, границы которых являются
+ * степенями двойки (в наносекундах), поэтому запись не
+ * требует выделения памяти и блокировок.
+ */
+public class LatencyHistogram
+{
+	private static final int BUCKET_COUNT = 64;
+	
+	private AtomicLongArray m_buckets = new AtomicLongArray(BUCKET_COUNT);
+	
+	private LongAdder m_count = new LongAdder();
+	
+	private LongAdder m_totalNanos = new LongAdder();
+	
+	private AtomicLong m_maxNanos = new AtomicLong();
+	
+	/**
+	 * Записывает длительность операции.
+	 * @param a_nanos
+	 * 		  Длительность в наносекундах
+	 */
+	public void record (long a_nanos)
+	{
+		long nanos = Math.max(0, a_nanos);
+		int bucket = Math.min(BUCKET_COUNT - 1, BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+		m_buckets.incrementAndGet(bucket);
+		m_count.increment();
+		m_totalNanos.add(nanos);
+		long max = m_maxNanos.get();
+		while (nanos > max && !m_maxNanos.compareAndSet(max, nanos)) max = m_maxNanos.get();
+	}
+	
+	/**
+	 * @return количество записанных операций
+	 */
+	public long getCount ()
+	{
+		return m_count.sum();
+	}
+	
+	/**
+	 * @return суммарная длительность операций в наносекундах
+	 */
+	public long getTotalNanos ()
+	{
+		return m_totalNanos.sum();
+	}
+	
+	/**
+	 * @return максимальная длительность операции в
+	 * наносекундах
+	 */
+	public long getMaxNanos ()
+	{
+		return m_maxNanos.get();
+	}
+	
+	/**
+	 * @param a_percentile
+	 * 		  Перцентиль от 0 до 100
+	 * @return верхняя граница интервала, в который попадает
+	 * заданный перцентиль длительностей, в наносекундах
+	 */
+	public long getPercentileNanos (double a_percentile)
+	{
+		long count = getCount();
+		if (count == 0) return 0;
+		long threshold = (long)Math.ceil(count * a_percentile / 100);
+		long accumulated = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			accumulated += m_buckets.get(i);
+			if (accumulated >= threshold) return (i == 0) ? 0 : (1L << i) - 1;
+		}
+		return getMaxNanos();
+	}
+	
+	/**
+	 * Удаляет все записанные длительности.
+	 */
+	public void reset ()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++) m_buckets.set(i, 0);
+		m_count.reset();
+		m_totalNanos.reset();
+		m_maxNanos.set(0);
+	}
+	
+	@Override
+	public String toString ()
+	{
+		long count = getCount();
+		long mean = (count == 0) ? 0 : getTotalNanos() / count;
+		return String.format("count=%d mean=%dus p50<=%dus p90<=%dus p99<=%dus max=%dus", count,
+							 toMicros(mean), toMicros(getPercentileNanos(50)), toMicros(getPercentileNanos(90)),
+							 toMicros(getPercentileNanos(99)), toMicros(getMaxNanos()));
+	}
+	
+	/**
+	 * @param a_nanos
+	 * 		  Длительность в наносекундах
+	 * @return длительность в микросекундах
+	 */
+	private static long toMicros (long a_nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMicros(a_nanos);
+	}
+}
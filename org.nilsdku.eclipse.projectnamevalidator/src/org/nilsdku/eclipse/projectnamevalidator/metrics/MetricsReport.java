@@ -0,0 +1,74 @@
+package org.nilsdku.eclipse.projectnamevalidator.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Машиночитаемый отчёт о метриках плагина в формате JSON.
+ * Для каждой операции записываются количество, суммарная,
+ * максимальная длительность и перцентили в микросекундах,
+ * что позволяет сравнивать результаты разных сборок и
+ * проверять их на превышение допустимых значений.
+ */
+public class MetricsReport
+{
+	/**
+	 * Версия формата отчёта.
+	 */
+	public static final int FORMAT_VERSION = 1;
+	
+	private ValidationMetrics m_metrics;
+	
+	/**
+	 * Конструктор класса MetricsReport.
+	 * @param a_metrics
+	 * 		  Метрики плагина. NotNull
+	 */
+	public MetricsReport (ValidationMetrics a_metrics)
+	{
+		m_metrics = Objects.requireNonNull(a_metrics);
+	}
+	
+	/**
+	 * Записывает отчёт.
+	 * @param a_writer
+	 * 		  Поток вывода. NotNull
+	 * @throws IOException
+	 */
+	public void write (Writer a_writer) throws IOException
+	{
+		a_writer.write("{\"version\":" + FORMAT_VERSION);
+		a_writer.write(",\"timestamp\":" + System.currentTimeMillis());
+		a_writer.write(",\"mismatches\":" + m_metrics.getMismatchCount());
+		a_writer.write(",\"ignoreListHits\":" + m_metrics.getIgnoreListHitCount());
+		a_writer.write(",\"ignoreListMisses\":" + m_metrics.getIgnoreListMissCount());
+		a_writer.write(",\"operations\":{");
+		Operation[] operations = Operation.values();
+		for (int i = 0; i < operations.length; i++)
+		{
+			LatencyHistogram histogram = m_metrics.getHistogram(operations[i]);
+			if (i > 0) a_writer.write(',');
+			a_writer.write('"' + operations[i].name() + "\":{");
+			a_writer.write("\"count\":" + histogram.getCount());
+			a_writer.write(",\"totalMicros\":" + toMicros(histogram.getTotalNanos()));
+			a_writer.write(",\"maxMicros\":" + toMicros(histogram.getMaxNanos()));
+			a_writer.write(",\"p50Micros\":" + toMicros(histogram.getPercentileNanos(50)));
+			a_writer.write(",\"p99Micros\":" + toMicros(histogram.getPercentileNanos(99)));
+			a_writer.write('}');
+		}
+		a_writer.write("}}" + System.lineSeparator());
+		a_writer.flush();
+	}
+	
+	/**
+	 * @param a_nanos
+	 * 		  Длительность в наносекундах
+	 * @return длительность в микросекундах
+	 */
+	private static long toMicros (long a_nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMicros(a_nanos);
+	}
+}
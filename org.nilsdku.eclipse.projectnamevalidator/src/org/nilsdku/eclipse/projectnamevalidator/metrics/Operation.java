@@ -0,0 +1,47 @@
+package org.nilsdku.eclipse.projectnamevalidator.metrics;
+
+/**
+ * Операции плагина, для которых собираются метрики.
+ */
+public enum Operation
+{
+	/**
+	 * Проверка имени одного проекта.
+	 */
+	VALIDATION,
+	
+	/**
+	 * Чтение постоянного свойства из хранилища.
+	 */
+	PROPERTY_READ,
+	
+	/**
+	 * Запись постоянного свойства в хранилище.
+	 */
+	PROPERTY_WRITE,
+	
+	/**
+	 * Создание маркера проблемы.
+	 */
+	MARKER_CREATION,
+	
+	/**
+	 * Удаление маркера проблемы.
+	 */
+	MARKER_DELETION,
+	
+	/**
+	 * Поиск маркера проблемы.
+	 */
+	MARKER_LOOKUP,
+	
+	/**
+	 * Обработка события изменения ресурсов слушателем.
+	 */
+	LISTENER_EVENT,
+	
+	/**
+	 * Выполнение кода плагина в потоке Display.
+	 */
+	UI_THREAD
+}
@@ -0,0 +1,310 @@
+package org.nilsdku.eclipse.projectnamevalidator.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.osgi.service.debug.DebugOptions;
+import org.eclipse.osgi.service.debug.DebugOptionsListener;
+import org.eclipse.osgi.service.debug.DebugTrace;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Счётчики и гистограммы длительностей операций плагина.
+ * Сбор метрик включается опцией отладки
+ * org.nilsdku.eclipse.projectnamevalidator/debug/metrics
+ * (файл .options) или атрибутом Enabled MBean. Опция
+ * org.nilsdku.eclipse.projectnamevalidator/debug/trace
+ * дополнительно записывает каждую операцию в трассировку
+ * DebugTrace платформы. Опции читаются слушателем
+ * DebugOptionsListener, поэтому их изменение, например на
+ * вкладке Tracing, вступает в силу без перезапуска. Если
+ * сбор выключен, методы записи сводятся к чтению одного
+ * поля.
+ */
+public class ValidationMetrics implements ValidationMetricsMBean
+{
+	private static final String BUNDLE_NAME = FrameworkUtil.getBundle(ValidationMetrics.class).getSymbolicName();
+	
+	private static final String OPTION_DEBUG = "/debug";
+	
+	private static final String OPTION_METRICS = "/debug/metrics";
+	
+	private static final String OPTION_TRACE = "/debug/trace";
+	
+	private static final String OBJECT_NAME = BUNDLE_NAME + ":type=ValidationMetrics";
+	
+	private static final ValidationMetrics INSTANCE = new ValidationMetrics();
+	
+	private volatile boolean m_enabled;
+	
+	/**
+	 * Трассировка операций или null, если опция OPTION_TRACE
+	 * не установлена.
+	 */
+	private volatile DebugTrace m_trace;
+	
+	private LatencyHistogram[] m_histograms = new LatencyHistogram[Operation.values().length];
+	
+	private LongAdder m_mismatchCount = new LongAdder();
+	
+	private LongAdder m_ignoreListHitCount = new LongAdder();
+	
+	private LongAdder m_ignoreListMissCount = new LongAdder();
+	
+	/**
+	 * Конструктор класса ValidationMetrics. Регистрирует
+	 * слушатель опций отладки платформы, который сразу
+	 * получает их текущие значения.
+	 */
+	private ValidationMetrics ()
+	{
+		for (int i = 0; i < m_histograms.length; i++) m_histograms[i] = new LatencyHistogram();
+		BundleContext context = FrameworkUtil.getBundle(ValidationMetrics.class).getBundleContext();
+		if (context == null) return;
+		Dictionary<String, String> properties = new Hashtable<String, String>();
+		properties.put(DebugOptions.LISTENER_SYMBOLICNAME, BUNDLE_NAME);
+		context.registerService(DebugOptionsListener.class, new DebugOptionsListener()
+		{
+			@Override
+			public void optionsChanged (DebugOptions a_options)
+			{
+				boolean debug = a_options.isDebugEnabled() &&
+								a_options.getBooleanOption(BUNDLE_NAME + OPTION_DEBUG, false);
+				boolean tracing = debug && a_options.getBooleanOption(BUNDLE_NAME + OPTION_TRACE, false);
+				m_trace = tracing ? a_options.newDebugTrace(BUNDLE_NAME, ValidationMetrics.class) : null;
+				m_enabled = tracing || (debug && a_options.getBooleanOption(BUNDLE_NAME + OPTION_METRICS, false));
+			}
+		}, properties);
+	}
+	
+	/**
+	 * @return единственный объект метрик плагина
+	 */
+	public static ValidationMetrics getInstance ()
+	{
+		return INSTANCE;
+	}
+	
+	/**
+	 * Регистрирует объект метрик в MBeanServer платформы
+	 * Java. Повторная регистрация игнорируется.
+	 */
+	public void registerMBean ()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, new ObjectName(OBJECT_NAME));
+		}
+		catch (InstanceAlreadyExistsException e)
+		{
+			/*
+			 * MBean уже зарегистрирован:*/
+		}
+		catch (JMException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+	}
+	
+	/**
+	 * @return момент начала операции в наносекундах или 0,
+	 * если сбор метрик выключен
+	 */
+	public long start ()
+	{
+		return m_enabled ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * Записывает завершение операции.
+	 * @param a_operation
+	 * 		  Операция
+	 * @param a_startTime
+	 * 		  Значение, возвращённое методом start
+	 */
+	public void record (Operation a_operation, long a_startTime)
+	{
+		record(a_operation, a_startTime, 1);
+	}
+	
+	/**
+	 * Записывает завершение a_count однотипных операций,
+	 * выполненных вместе. Длительность делится между ними
+	 * поровну.
+	 * @param a_operation
+	 * 		  Операция
+	 * @param a_startTime
+	 * 		  Значение, возвращённое методом start
+	 * @param a_count
+	 * 		  Количество операций
+	 */
+	public void record (Operation a_operation, long a_startTime, int a_count)
+	{
+		if (!m_enabled || a_startTime == 0 || a_count <= 0) return;
+		long duration = System.nanoTime() - a_startTime;
+		LatencyHistogram histogram = m_histograms[a_operation.ordinal()];
+		for (int i = 0; i < a_count; i++) histogram.record(duration / a_count);
+		DebugTrace trace = m_trace;
+		if (trace != null)
+		{
+			trace.trace(OPTION_TRACE, a_operation + " x" + a_count + " " + TimeUnit.NANOSECONDS.toMicros(duration) + "us");
+		}
+	}
+	
+	/**
+	 * Записывает обнаружение несовпадения имени проекта и
+	 * имени его папки.
+	 */
+	public void recordMismatch ()
+	{
+		if (m_enabled) m_mismatchCount.increment();
+	}
+	
+	/**
+	 * Записывает обращение к списку исключений
+	 * IgnoreListStore.
+	 * @param a_hit
+	 * 		  true, если значение получено из памяти, false -
+	 * 		  если потребовалось чтение хранилища
+	 */
+	public void recordIgnoreListLookup (boolean a_hit)
+	{
+		if (!m_enabled) return;
+		if (a_hit) m_ignoreListHitCount.increment();
+		else m_ignoreListMissCount.increment();
+	}
+	
+	/**
+	 * @param a_operation
+	 * 		  Операция
+	 * @return гистограмма длительностей операции
+	 */
+	public LatencyHistogram getHistogram (Operation a_operation)
+	{
+		return m_histograms[a_operation.ordinal()];
+	}
+	
+	@Override
+	public boolean isEnabled ()
+	{
+		return m_enabled;
+	}
+	
+	@Override
+	public void setEnabled (boolean a_enabled)
+	{
+		m_enabled = a_enabled;
+	}
+	
+	@Override
+	public long getValidationCount ()
+	{
+		return getHistogram(Operation.VALIDATION).getCount();
+	}
+	
+	@Override
+	public long getMismatchCount ()
+	{
+		return m_mismatchCount.sum();
+	}
+	
+	@Override
+	public long getIgnoreListHitCount ()
+	{
+		return m_ignoreListHitCount.sum();
+	}
+	
+	@Override
+	public long getIgnoreListMissCount ()
+	{
+		return m_ignoreListMissCount.sum();
+	}
+	
+	@Override
+	public long getMarkerCreationCount ()
+	{
+		return getHistogram(Operation.MARKER_CREATION).getCount();
+	}
+	
+	@Override
+	public long getMarkerDeletionCount ()
+	{
+		return getHistogram(Operation.MARKER_DELETION).getCount();
+	}
+	
+	@Override
+	public long getPropertyReadCount ()
+	{
+		return getHistogram(Operation.PROPERTY_READ).getCount();
+	}
+	
+	@Override
+	public long getPropertyWriteCount ()
+	{
+		return getHistogram(Operation.PROPERTY_WRITE).getCount();
+	}
+	
+	@Override
+	public long getListenerEventCount ()
+	{
+		return getHistogram(Operation.LISTENER_EVENT).getCount();
+	}
+	
+	@Override
+	public long getListenerTotalTimeMicros ()
+	{
+		return TimeUnit.NANOSECONDS.toMicros(getHistogram(Operation.LISTENER_EVENT).getTotalNanos());
+	}
+	
+	@Override
+	public long getUiThreadTotalTimeMicros ()
+	{
+		return TimeUnit.NANOSECONDS.toMicros(getHistogram(Operation.UI_THREAD).getTotalNanos());
+	}
+	
+	@Override
+	public void writeReport (String a_file) throws IOException
+	{
+		try (Writer writer = Files.newBufferedWriter(Paths.get(a_file), StandardCharsets.UTF_8))
+		{
+			new MetricsReport(this).write(writer);
+		}
+	}
+	
+	@Override
+	public String[] getLatencySummary ()
+	{
+		Operation[] operations = Operation.values();
+		String[] summary = new String[operations.length];
+		for (int i = 0; i < operations.length; i++)
+		{
+			summary[i] = operations[i] + ": " + m_histograms[i];
+		}
+		return summary;
+	}
+	
+	@Override
+	public void reset ()
+	{
+		for (LatencyHistogram histogram : m_histograms) histogram.reset();
+		m_mismatchCount.reset();
+		m_ignoreListHitCount.reset();
+		m_ignoreListMissCount.reset();
+	}
+}
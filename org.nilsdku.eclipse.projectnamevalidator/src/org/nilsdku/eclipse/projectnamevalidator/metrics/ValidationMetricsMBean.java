@@ -0,0 +1,100 @@
+package org.nilsdku.eclipse.projectnamevalidator.metrics;
+
+import java.io.IOException;
+
+/**
+ * Интерфейс MBean для просмотра метрик плагина в
+ * запущенной среде (например, с помощью jconsole).
+ */
+public interface ValidationMetricsMBean
+{
+	/**
+	 * @return true, если сбор метрик включён
+	 */
+	boolean isEnabled ();
+	
+	/**
+	 * Включает или выключает сбор метрик.
+	 * @param a_enabled
+	 * 		  true для включения сбора метрик
+	 */
+	void setEnabled (boolean a_enabled);
+	
+	/**
+	 * @return количество выполненных проверок имён проектов
+	 */
+	long getValidationCount ();
+	
+	/**
+	 * @return количество найденных несовпадений имён
+	 */
+	long getMismatchCount ();
+	
+	/**
+	 * @return количество обращений к списку исключений,
+	 * обслуженных из памяти
+	 */
+	long getIgnoreListHitCount ();
+	
+	/**
+	 * @return количество обращений к списку исключений,
+	 * потребовавших чтения хранилища
+	 */
+	long getIgnoreListMissCount ();
+	
+	/**
+	 * @return количество созданных маркеров
+	 */
+	long getMarkerCreationCount ();
+	
+	/**
+	 * @return количество удалённых маркеров
+	 */
+	long getMarkerDeletionCount ();
+	
+	/**
+	 * @return количество чтений постоянных свойств
+	 */
+	long getPropertyReadCount ();
+	
+	/**
+	 * @return количество записей постоянных свойств
+	 */
+	long getPropertyWriteCount ();
+	
+	/**
+	 * @return количество событий, обработанных слушателем
+	 */
+	long getListenerEventCount ();
+	
+	/**
+	 * @return суммарное время обработки событий слушателем
+	 * в микросекундах
+	 */
+	long getListenerTotalTimeMicros ();
+	
+	/**
+	 * @return описания гистограмм длительностей всех
+	 * операций
+	 */
+	String[] getLatencySummary ();
+	
+	/**
+	 * @return суммарное время выполнения кода плагина в
+	 * потоке Display в микросекундах
+	 */
+	long getUiThreadTotalTimeMicros ();
+	
+	/**
+	 * Записывает отчёт MetricsReport в файл.
+	 * @param a_file
+	 * 		  Путь к файлу отчёта
+	 * @throws IOException
+	 */
+	void writeReport (String a_file) throws IOException;
+	
+	/**
+	 * Обнуляет все метрики.
+	 */
+	void reset ();
+}
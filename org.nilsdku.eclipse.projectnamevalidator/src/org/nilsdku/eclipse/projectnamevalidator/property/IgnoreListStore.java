@@ -0,0 +1,507 @@
+package org.nilsdku.eclipse.projectnamevalidator.property;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.prefs.BackingStoreException;
+
+/**
+ * Хранилище списка исключений рабочей области. Для
+ * каждой рабочей области создаётся своё хранилище, все
+ * исключения которого хранятся в одном узле настроек
+ * IEclipsePreferences и читаются из него один раз при
+ * первом обращении. Ключом служит имя проекта: при
+ * перемещении папки проекта исключение сохраняется, а
+ * при переименовании проекта переносится на новое имя
+ * методом updateNames. Изменения имён запоминаются в
+ * очереди и применяются при следующей загрузке, чтобы
+ * обработка события изменения ресурсов не читала
+ * хранилище.
+ * При первой загрузке в хранилище переносятся значения
+ * постоянных свойств открытых проектов, в которых
+ * исключения хранились ранее, а сами свойства удаляются.
+ * Закрытые проекты запоминаются и переносятся при первом
+ * обращении к ним после открытия.
+ */
+public class IgnoreListStore
+{
+	/**
+	 * Имя узла настроек, в котором хранятся исключения.
+	 */
+	private static final String NODE_NAME = "ignoredProjects";
+	
+	/**
+	 * Имя узла настроек, в котором хранится состояние
+	 * переноса постоянных свойств.
+	 */
+	private static final String MIGRATION_NODE_NAME = "ignoreListMigration";
+	
+	/**
+	 * Ключ настройки, установленной после переноса
+	 * постоянных свойств открытых проектов.
+	 */
+	private static final String PREFERENCE_MIGRATED = "migrated";
+	
+	/**
+	 * Ключ настройки, хранящей имена закрытых проектов,
+	 * постоянные свойства которых ещё не перенесены.
+	 */
+	private static final String PREFERENCE_PENDING = "pending";
+	
+	/**
+	 * Разделитель имён проектов в настройке
+	 * PREFERENCE_PENDING. Символ не может входить в имя
+	 * проекта.
+	 */
+	private static final String NAME_SEPARATOR = "/";
+	
+	/**
+	 * Локальное имя постоянного свойства, в котором
+	 * исключения хранились ранее.
+	 */
+	private static final String LEGACY_KEY = "RENAME_IGNORING_KEY";
+	
+	private static final Map<IWorkspace, IgnoreListStore> s_instances = new WeakHashMap<IWorkspace, IgnoreListStore>();
+	
+	private IWorkspace m_workspace;
+	
+	private IEclipsePreferences m_bundleNode;
+	
+	private IEclipsePreferences m_node;
+	
+	private IEclipsePreferences m_migrationNode;
+	
+	private Map<String, Boolean> m_values = new ConcurrentHashMap<String, Boolean>();
+	
+	/**
+	 * Имена закрытых проектов, постоянные свойства которых
+	 * ещё не перенесены.
+	 */
+	private Set<String> m_pendingNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	
+	private volatile boolean m_loaded;
+	
+	/**
+	 * Изменения имён проектов, ещё не применённые к
+	 * значениям хранилища.
+	 */
+	private Queue<NameUpdate> m_nameUpdates = new ConcurrentLinkedQueue<NameUpdate>();
+	
+	/**
+	 * Задание, применяющее изменения имён проектов и
+	 * сохраняющее узел настроек.
+	 */
+	private Job m_flushJob;
+	
+	/**
+	 * Конструктор класса IgnoreListStore.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 */
+	private IgnoreListStore (IWorkspace a_workspace)
+	{
+		m_workspace = Objects.requireNonNull(a_workspace);
+		String workspaceKey = getWorkspaceKey(a_workspace);
+		m_bundleNode = InstanceScope.INSTANCE.getNode(getBundleName());
+		m_node = (IEclipsePreferences)m_bundleNode.node(NODE_NAME).node(workspaceKey);
+		m_migrationNode = (IEclipsePreferences)m_bundleNode.node(MIGRATION_NODE_NAME).node(workspaceKey);
+		m_flushJob = new Job(Messages.Job_Ignore_List_Update)
+		{
+			@Override
+			protected IStatus run (IProgressMonitor a_monitor)
+			{
+				try
+				{
+					load();
+					synchronized (IgnoreListStore.this)
+					{
+						flush();
+					}
+				}
+				catch (CoreException e)
+				{
+					ErrorStatusHandler.log(e, e.getMessage());
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		m_flushJob.setSystem(true);
+	}
+	
+	/**
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @return хранилище исключений рабочей области
+	 */
+	public static synchronized IgnoreListStore getInstance (IWorkspace a_workspace)
+	{
+		IgnoreListStore store = s_instances.get(a_workspace);
+		if (store == null)
+		{
+			store = new IgnoreListStore(a_workspace);
+			s_instances.put(a_workspace, store);
+		}
+		return store;
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект рабочей области хранилища. NotNull
+	 * @return true, если проект занесён в исключения, false -
+	 * если пользователь отказался заносить проект в
+	 * исключения, null - если решение не принималось.
+	 * Обращение, потребовавшее чтения узла настроек или
+	 * постоянного свойства проекта, учитывается в
+	 * ValidationMetrics как промах, остальные - как
+	 * попадания
+	 * @throws CoreException
+	 */
+	public Boolean get (IProject a_project) throws CoreException
+	{
+		boolean miss = !m_loaded;
+		load();
+		if (!m_pendingNames.isEmpty() && m_pendingNames.contains(a_project.getName()) && a_project.isOpen())
+		{
+			synchronized (this)
+			{
+				if (m_pendingNames.remove(a_project.getName()))
+				{
+					migrate(a_project);
+					savePendingNames();
+					flush();
+					miss = true;
+				}
+			}
+		}
+		ValidationMetrics.getInstance().recordIgnoreListLookup(!miss);
+		return m_values.get(a_project.getName());
+	}
+	
+	/**
+	 * Заносит проект в исключения или удаляет его из них
+	 * и сохраняет узел настроек.
+	 * @param a_project
+	 * 		  Проект рабочей области хранилища. NotNull
+	 * @param a_ignored
+	 * 		  true, если проект нужно занести в исключения
+	 * @throws CoreException
+	 */
+	public void set (IProject a_project, boolean a_ignored) throws CoreException
+	{
+		setAll(Collections.singletonMap(a_project, a_ignored));
+	}
+	
+	/**
+	 * Изменяет исключения для нескольких проектов и
+	 * сохраняет узел настроек один раз.
+	 * @param a_values
+	 * 		  Проекты рабочей области хранилища и признаки их
+	 * 		  занесения в исключения. NotNull
+	 * @throws CoreException
+	 */
+	public void setAll (Map<IProject, Boolean> a_values) throws CoreException
+	{
+		if (a_values.isEmpty()) return;
+		load();
+		synchronized (this)
+		{
+			for (Map.Entry<IProject, Boolean> entry : a_values.entrySet())
+			{
+				IProject project = entry.getKey();
+				/*
+				 * Решение пользователя заменяет значение ещё не
+				 * перенесённого постоянного свойства, но само
+				 * свойство удаляется:*/
+				if (project.isOpen() && m_pendingNames.remove(project.getName()))
+				{
+					migrate(project);
+					savePendingNames();
+				}
+				put(project.getName(), entry.getValue());
+			}
+			flush();
+		}
+	}
+	
+	/**
+	 * Запоминает переименования и удаления проектов и
+	 * планирует задание, которое применяет их и сохраняет
+	 * узел настроек. Метод вызывается при обработке события
+	 * изменения ресурсов до проверки переименованных
+	 * проектов и не обращается к хранилищу: изменения
+	 * применяются до чтения значений методами get и setAll.
+	 * @param a_renamedProjects
+	 * 		  Прежние и новые проекты. NotNull
+	 * @param a_removedProjects
+	 * 		  Удалённые проекты. NotNull
+	 */
+	public void updateNames (Map<IProject, IProject> a_renamedProjects, Collection<IProject> a_removedProjects)
+	{
+		if (a_renamedProjects.isEmpty() && a_removedProjects.isEmpty()) return;
+		m_nameUpdates.add(new NameUpdate(a_renamedProjects, a_removedProjects));
+		m_flushJob.schedule();
+	}
+	
+	/**
+	 * Читает узел настроек, при первой загрузке переносит
+	 * постоянные свойства открытых проектов и применяет
+	 * запомненные изменения имён. Повторные вызовы без новых
+	 * изменений имён ничего не делают. Метод вызывается
+	 * DeferredStartupJob до установки слушателя, чтобы
+	 * перенос не выполнялся при обработке событий.
+	 * @throws CoreException
+	 */
+	public void load () throws CoreException
+	{
+		if (m_loaded && m_nameUpdates.isEmpty()) return;
+		synchronized (this)
+		{
+			if (!m_loaded)
+			{
+				ValidationMetrics metrics = ValidationMetrics.getInstance();
+				long startTime = metrics.start();
+				try
+				{
+					for (String key : m_node.keys()) m_values.put(key, m_node.getBoolean(key, false));
+				}
+				catch (BackingStoreException e)
+				{
+					throw toCoreException(e);
+				}
+				String pendingNames = m_migrationNode.get(PREFERENCE_PENDING, "");
+				for (String name : pendingNames.split(NAME_SEPARATOR))
+				{
+					if (!name.isEmpty()) m_pendingNames.add(name);
+				}
+				metrics.record(Operation.PROPERTY_READ, startTime);
+				if (!m_migrationNode.getBoolean(PREFERENCE_MIGRATED, false)) migrateAll();
+				m_loaded = true;
+			}
+			for (NameUpdate update = m_nameUpdates.poll(); update != null; update = m_nameUpdates.poll())
+			{
+				apply(update);
+			}
+		}
+	}
+	
+	/**
+	 * Переносит исключения переименованных проектов на их
+	 * новые имена и удаляет исключения удалённых проектов.
+	 * Изменяет только значения в памяти и узел настроек, не
+	 * сохраняя его.
+	 * @param a_update
+	 * 		  Изменения имён проектов
+	 */
+	private void apply (NameUpdate a_update)
+	{
+		for (Map.Entry<String, String> entry : a_update.m_renamedNames.entrySet())
+		{
+			String oldName = entry.getKey();
+			String newName = entry.getValue();
+			if (m_pendingNames.remove(oldName))
+			{
+				m_pendingNames.add(newName);
+				savePendingNames();
+			}
+			Boolean value = m_values.get(oldName);
+			if (value == null) continue;
+			remove(oldName);
+			put(newName, value);
+		}
+		for (String name : a_update.m_removedNames)
+		{
+			if (m_pendingNames.remove(name)) savePendingNames();
+			if (m_values.containsKey(name)) remove(name);
+		}
+	}
+	
+	/**
+	 * Переносит постоянные свойства открытых проектов и
+	 * запоминает закрытые проекты для переноса при их
+	 * открытии. Перенос выполняется один раз.
+	 * @throws CoreException
+	 */
+	private void migrateAll () throws CoreException
+	{
+		for (IProject project : m_workspace.getRoot().getProjects())
+		{
+			if (project.isOpen()) migrate(project);
+			else m_pendingNames.add(project.getName());
+		}
+		savePendingNames();
+		m_migrationNode.putBoolean(PREFERENCE_MIGRATED, true);
+		flush();
+	}
+	
+	/**
+	 * Переносит значение постоянного свойства открытого
+	 * проекта, если для проекта в узле ещё нет значения, и
+	 * удаляет свойство.
+	 * @param a_project
+	 * 		  Открытый проект
+	 * @throws CoreException
+	 */
+	private void migrate (IProject a_project) throws CoreException
+	{
+		IPath location = a_project.getLocation();
+		String folderName = (location != null) ? location.lastSegment() : a_project.getName();
+		QualifiedName legacyName = new QualifiedName(folderName, LEGACY_KEY);
+		String value = a_project.getPersistentProperty(legacyName);
+		if (value == null) return;
+		if (!m_values.containsKey(a_project.getName())) put(a_project.getName(), Boolean.parseBoolean(value));
+		a_project.setPersistentProperty(legacyName, null);
+	}
+	
+	/**
+	 * Записывает имена ещё не перенесённых проектов в узел
+	 * настроек.
+	 */
+	private void savePendingNames ()
+	{
+		if (m_pendingNames.isEmpty()) m_migrationNode.remove(PREFERENCE_PENDING);
+		else m_migrationNode.put(PREFERENCE_PENDING, String.join(NAME_SEPARATOR, m_pendingNames));
+	}
+	
+	/**
+	 * @param a_name
+	 * 		  Имя проекта
+	 * @param a_ignored
+	 * 		  Признак занесения проекта в исключения
+	 */
+	private void put (String a_name, boolean a_ignored)
+	{
+		m_values.put(a_name, a_ignored);
+		m_node.putBoolean(a_name, a_ignored);
+	}
+	
+	/**
+	 * @param a_name
+	 * 		  Имя проекта
+	 */
+	private void remove (String a_name)
+	{
+		m_values.remove(a_name);
+		m_node.remove(a_name);
+	}
+	
+	/**
+	 * Сохраняет узел настроек.
+	 * @throws CoreException
+	 */
+	private void flush () throws CoreException
+	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		try
+		{
+			m_bundleNode.flush();
+		}
+		catch (BackingStoreException e)
+		{
+			throw toCoreException(e);
+		}
+		metrics.record(Operation.PROPERTY_WRITE, startTime);
+	}
+	
+	/**
+	 * @param a_workspace
+	 * 		  Рабочая область
+	 * @return имя узла настроек рабочей области, построенное
+	 * по расположению её корня
+	 */
+	private static String getWorkspaceKey (IWorkspace a_workspace)
+	{
+		IPath location = a_workspace.getRoot().getLocation();
+		if (location == null) return "default";
+		try
+		{
+			/*
+			 * Имя узла настроек не может содержать "/":*/
+			return URLEncoder.encode(location.toString(), StandardCharsets.UTF_8.name());
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param a_exception
+	 * 		  Исключение хранилища настроек
+	 * @return исключение CoreException с тем же сообщением
+	 */
+	private static CoreException toCoreException (BackingStoreException a_exception)
+	{
+		return new CoreException(new Status(IStatus.ERROR, getBundleName(), a_exception.getMessage(), a_exception));
+	}
+	
+	/**
+	 * @return символическое имя пакета плагина
+	 */
+	private static String getBundleName ()
+	{
+		return FrameworkUtil.getBundle(IgnoreListStore.class).getSymbolicName();
+	}
+	
+	/**
+	 * Переименования и удаления проектов одного события
+	 * изменения ресурсов.
+	 */
+	private static class NameUpdate
+	{
+		/**
+		 * Прежние и новые имена переименованных проектов.
+		 */
+		private final Map<String, String> m_renamedNames = new LinkedHashMap<String, String>();
+		
+		/**
+		 * Имена удалённых проектов.
+		 */
+		private final List<String> m_removedNames = new ArrayList<String>();
+		
+		/**
+		 * Конструктор класса NameUpdate.
+		 * @param a_renamedProjects
+		 * 		  Прежние и новые проекты. NotNull
+		 * @param a_removedProjects
+		 * 		  Удалённые проекты. NotNull
+		 */
+		private NameUpdate (Map<IProject, IProject> a_renamedProjects, Collection<IProject> a_removedProjects)
+		{
+			for (Map.Entry<IProject, IProject> entry : a_renamedProjects.entrySet())
+			{
+				m_renamedNames.put(entry.getKey().getName(), entry.getValue().getName());
+			}
+			for (IProject project : a_removedProjects) m_removedNames.add(project.getName());
+		}
+	}
+}
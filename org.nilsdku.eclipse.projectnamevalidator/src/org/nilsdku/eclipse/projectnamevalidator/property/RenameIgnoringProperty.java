@@ -4,8 +4,6 @@ import java.util.Objects;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.QualifiedName;
 import org.nilsdku.eclipse.projectnamevalidator.ProjectValidator;
 
 /**
@@ -13,25 +11,18 @@ import org.nilsdku.eclipse.projectnamevalidator.ProjectValidator;
  * переименования проекта в случае, когда оно приводит
  * к несовпадению имени проекта и имени его папки в
  * файловой системе.
- * Свойство сохраняется между сессиями, а его значение
- * может быть изменено на соответствующей странице
- * окна свойств.
+ * Свойство сохраняется между сессиями в хранилище
+ * IgnoreListStore, а его значение может быть изменено
+ * на соответствующей странице окна свойств.
  */
 public class RenameIgnoringProperty
 {
-	private final String m_renameIgnoringKey = "RENAME_IGNORING_KEY";
-			
 	private IProject m_project;
 	
 	private ProjectValidator m_projectValidator;
 	
-	private QualifiedName m_qualifiedName;
-	
 	/**
 	 * Конструктор класса RenameIgnoringProperty.
-	 * Вызывает метод создания квалификатора QualifiedName,
-	 * который является ключом, с помощью которого
-	 * идентифицируется свойство RenameIgnoringProperty.
 	 * @param a_project
 	 * 		  Проект, который будет иметь свойство
 	 * 		  RenameIgnoringProperty. notNull
@@ -40,23 +31,6 @@ public class RenameIgnoringProperty
 	{
 		m_project = Objects.requireNonNull(a_project);
 		m_projectValidator = new ProjectValidator(m_project);
-		createQualifiedName(m_project);
-	}
-	
-	/**
-	 * Создаёт квалификатор QualifiedName, который является
-	 * ключом, с помощью которого идентифицируется свойство
-	 * RenameIgnoringProperty.
-	 * @param a_project
-	 * 		  Проект, который будет обладать свойством
-	 * 		  RenameIgnoringProperty
-	 */
-	private void createQualifiedName (IProject a_project)
-	{
-		IPath location = m_project.getLocation();
-		String folderName = m_project.getName();
-		if (location != null) folderName = location.lastSegment();
-		m_qualifiedName = new QualifiedName(folderName, m_renameIgnoringKey);
 	}
 	
 	/**
@@ -66,23 +40,19 @@ public class RenameIgnoringProperty
 	 */
 	public boolean exists () throws CoreException
 	{
-		if (!m_projectValidator.isProjectOpen()) return false;
-		String property = m_project.getPersistentProperty(m_qualifiedName);
-		return (property != null) ? true : false;
+		return IgnoreListStore.getInstance(m_project.getWorkspace()).get(m_project) != null;
 	}
 	
 	/**
 	 * @return значение свойства RenameIgnoringProperty.
 	 * Возвращает true, если проект, обладающий свойством,
 	 * находится в исключениях, false - если не находится
-	 * в исключениях, не существует или закрыт
+	 * в исключениях или свойство не существует
 	 * @throws CoreException
 	 */
 	public boolean getValue () throws CoreException
 	{
-		if (!m_projectValidator.isProjectOpen()) return false;
-		String property = m_project.getPersistentProperty(m_qualifiedName);
-		return (property == null) ? false : Boolean.parseBoolean(property);
+		return Boolean.TRUE.equals(IgnoreListStore.getInstance(m_project.getWorkspace()).get(m_project));
 	}
 	
 	/**
@@ -94,6 +64,6 @@ public class RenameIgnoringProperty
 	public void setValue (boolean a_ignoring) throws CoreException
 	{
 		if (!m_projectValidator.isProjectOpen()) return;
-		m_project.setPersistentProperty(m_qualifiedName, Boolean.toString(a_ignoring));
+		IgnoreListStore.getInstance(m_project.getWorkspace()).set(m_project, a_ignoring);
 	}
 }
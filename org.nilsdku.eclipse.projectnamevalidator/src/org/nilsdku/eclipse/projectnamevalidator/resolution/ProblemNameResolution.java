@@ -0,0 +1,98 @@
+package org.nilsdku.eclipse.projectnamevalidator.resolution;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.ui.views.markers.WorkbenchMarkerResolution;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.job.ProblemNameFixJob;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+
+/**
+ * Быстрое исправление, применимое сразу к нескольким
+ * маркерам проблемного имени. Проекты всех выбранных
+ * маркеров исправляются одним заданием ProblemNameFixJob.
+ */
+public class ProblemNameResolution extends WorkbenchMarkerResolution
+{
+	private boolean m_renameFolders;
+	
+	/**
+	 * Конструктор класса ProblemNameResolution.
+	 * @param a_renameFolders
+	 * 		  true, если переименовывать нужно папки, false -
+	 * 		  если проекты
+	 */
+	public ProblemNameResolution (boolean a_renameFolders)
+	{
+		m_renameFolders = a_renameFolders;
+	}
+	
+	@Override
+	public String getLabel ()
+	{
+		return m_renameFolders ? Messages.Resolution_Rename_Folder_Label : Messages.Resolution_Rename_Project_Label;
+	}
+	
+	@Override
+	public String getDescription ()
+	{
+		return m_renameFolders ? Messages.Resolution_Rename_Folder_Description :
+								 Messages.Resolution_Rename_Project_Description;
+	}
+	
+	@Override
+	public Image getImage ()
+	{
+		return null;
+	}
+	
+	@Override
+	public IMarker[] findOtherMarkers (IMarker[] a_markers)
+	{
+		List<IMarker> markers = new ArrayList<IMarker>();
+		for (IMarker marker : a_markers)
+		{
+			if (marker.getAttribute(ProblemNameMarkerManager.MARKER_ATTRIBUTE_PROBLEM_NAME, null) != null)
+			{
+				markers.add(marker);
+			}
+		}
+		return markers.toArray(new IMarker[markers.size()]);
+	}
+	
+	@Override
+	public void run (IMarker a_marker)
+	{
+		run(new IMarker[] {a_marker}, null);
+	}
+	
+	/**
+	 * Планирует одно задание, исправляющее проекты всех
+	 * маркеров a_markers.
+	 * @param a_markers
+	 * 		  Выбранные маркеры
+	 * @param a_monitor
+	 * 		  Не используется: исправление выполняется
+	 * 		  отменяемым заданием
+	 */
+	@Override
+	public void run (IMarker[] a_markers, IProgressMonitor a_monitor)
+	{
+		Set<IProject> projects = new LinkedHashSet<IProject>();
+		for (IMarker marker : a_markers)
+		{
+			IResource resource = marker.getResource();
+			if (resource != null && resource.getProject() != null) projects.add(resource.getProject());
+		}
+		if (projects.isEmpty()) return;
+		new ProblemNameFixJob(new ArrayList<IProject>(projects), m_renameFolders).schedule();
+	}
+}
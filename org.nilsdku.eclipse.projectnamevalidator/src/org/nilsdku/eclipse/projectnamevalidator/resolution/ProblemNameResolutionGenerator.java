@@ -0,0 +1,27 @@
+package org.nilsdku.eclipse.projectnamevalidator.resolution;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.ui.IMarkerResolution;
+import org.eclipse.ui.IMarkerResolutionGenerator2;
+import org.nilsdku.eclipse.projectnamevalidator.marker.ProblemNameMarkerManager;
+
+/**
+ * Генератор быстрых исправлений для маркеров проблемного
+ * имени проекта: переименование проекта по имени папки и
+ * переименование папки по имени проекта.
+ */
+public class ProblemNameResolutionGenerator implements IMarkerResolutionGenerator2
+{
+	@Override
+	public boolean hasResolutions (IMarker a_marker)
+	{
+		return a_marker.getAttribute(ProblemNameMarkerManager.MARKER_ATTRIBUTE_PROBLEM_NAME, null) != null;
+	}
+	
+	@Override
+	public IMarkerResolution[] getResolutions (IMarker a_marker)
+	{
+		if (!hasResolutions(a_marker)) return new IMarkerResolution[0];
+		return new IMarkerResolution[] {new ProblemNameResolution(false), new ProblemNameResolution(true)};
+	}
+}
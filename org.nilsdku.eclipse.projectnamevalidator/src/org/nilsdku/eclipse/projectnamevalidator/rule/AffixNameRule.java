@@ -0,0 +1,59 @@
+package org.nilsdku.eclipse.projectnamevalidator.rule;
+
+import java.util.Objects;
+
+/**
+ * Правило, допускающее, что имя папки отличается от имени
+ * проекта (или имя проекта от имени папки) заданными
+ * префиксом и суффиксом. Например, при суффиксе "-feature"
+ * проект "core" может находиться в папке "core-feature".
+ */
+public class AffixNameRule implements ProjectNameRule
+{
+	private String m_prefix;
+	
+	private String m_suffix;
+	
+	/**
+	 * Конструктор класса AffixNameRule.
+	 * @param a_prefix
+	 * 		  Допустимый префикс. NotNull, может быть пустым
+	 * @param a_suffix
+	 * 		  Допустимый суффикс. NotNull, может быть пустым
+	 */
+	public AffixNameRule (String a_prefix, String a_suffix)
+	{
+		m_prefix = Objects.requireNonNull(a_prefix);
+		m_suffix = Objects.requireNonNull(a_suffix);
+	}
+	
+	@Override
+	public boolean accepts (String a_projectName, String a_folderName)
+	{
+		return hasAffix(a_folderName, a_projectName) || hasAffix(a_projectName, a_folderName);
+	}
+	
+	/**
+	 * @param a_name
+	 * 		  Имя, которое может содержать префикс и суффикс
+	 * @param a_base
+	 * 		  Имя без префикса и суффикса
+	 * @return true, если a_name равно a_base с добавленными
+	 * префиксом и суффиксом, false - иначе
+	 */
+	private boolean hasAffix (String a_name, String a_base)
+	{
+		/*
+		 * Сравнение выполняется на месте, без создания
+		 * подстрок:*/
+		return a_name.length() == m_prefix.length() + a_base.length() + m_suffix.length() &&
+			   a_name.startsWith(m_prefix) && a_name.startsWith(a_base, m_prefix.length()) &&
+			   a_name.endsWith(m_suffix);
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "affix(" + m_prefix + ',' + m_suffix + ')';
+	}
+}
@@ -0,0 +1,16 @@
+package org.nilsdku.eclipse.projectnamevalidator.rule;
+
+/**
+ * Правило, допускающее различие имени проекта и имени
+ * его папки только в регистре символов. Используется для
+ * проектов, полученных из файловых систем, не различающих
+ * регистр.
+ */
+public class CaseInsensitiveNameRule implements ProjectNameRule
+{
+	@Override
+	public boolean accepts (String a_projectName, String a_folderName)
+	{
+		return a_projectName.equalsIgnoreCase(a_folderName);
+	}
+}
@@ -0,0 +1,14 @@
+package org.nilsdku.eclipse.projectnamevalidator.rule;
+
+/**
+ * Правило по умолчанию: имя проекта должно в точности
+ * совпадать с именем его папки.
+ */
+public class ExactNameRule implements ProjectNameRule
+{
+	@Override
+	public boolean accepts (String a_projectName, String a_folderName)
+	{
+		return a_projectName.equals(a_folderName);
+	}
+}
@@ -0,0 +1,98 @@
+package org.nilsdku.eclipse.projectnamevalidator.rule;
+
+/**
+ * Скомпилированный шаблон пути. Символ "*" соответствует
+ * любой последовательности символов в пределах одного
+ * сегмента пути, "**" - любой последовательности
+ * сегментов, "?" - одному символу, кроме "/". Сравнение
+ * выполняется непосредственно над символами пути без
+ * выделения памяти.
+ */
+public class PathGlob
+{
+	private char[] m_pattern;
+	
+	/**
+	 * Конструктор класса PathGlob.
+	 * @param a_pattern
+	 * 		  Шаблон пути с разделителем "/". NotNull
+	 */
+	public PathGlob (String a_pattern)
+	{
+		m_pattern = a_pattern.replace('\\', '/').toCharArray();
+	}
+	
+	/**
+	 * Сравнивает путь с шаблоном за один проход двумя
+	 * указателями без рекурсии. При несовпадении символа
+	 * сначала удлиняется последний "*", а если он упёрся в
+	 * "/", - последний "**": "*" не выходит за пределы
+	 * сегмента, поэтому разбиение пути на сегменты после
+	 * "**" однозначно, и возврат к более ранним шаблонам не
+	 * нужен.
+	 * @param a_path
+	 * 		  Путь с разделителем "/". NotNull
+	 * @return true, если путь соответствует шаблону, false -
+	 * иначе
+	 */
+	public boolean matches (CharSequence a_path)
+	{
+		int pathLength = a_path.length();
+		int pathIndex = 0;
+		int patternIndex = 0;
+		/*
+		 * Позиции шаблона после последних "*" и "**" и позиции
+		 * пути, до которых они поглотили символы:*/
+		int starPatternIndex = -1;
+		int starPathIndex = -1;
+		int anyPatternIndex = -1;
+		int anyPathIndex = -1;
+		while (pathIndex < pathLength)
+		{
+			if (patternIndex < m_pattern.length && m_pattern[patternIndex] == '*')
+			{
+				if (patternIndex + 1 < m_pattern.length && m_pattern[patternIndex + 1] == '*')
+				{
+					patternIndex += 2;
+					anyPatternIndex = patternIndex;
+					anyPathIndex = pathIndex;
+					starPatternIndex = -1;
+				}
+				else
+				{
+					patternIndex++;
+					starPatternIndex = patternIndex;
+					starPathIndex = pathIndex;
+				}
+				continue;
+			}
+			char pathChar = a_path.charAt(pathIndex);
+			if (patternIndex < m_pattern.length &&
+				(m_pattern[patternIndex] == '?' ? pathChar != '/' : m_pattern[patternIndex] == pathChar))
+			{
+				pathIndex++;
+				patternIndex++;
+			}
+			else if (starPatternIndex >= 0 && a_path.charAt(starPathIndex) != '/')
+			{
+				pathIndex = ++starPathIndex;
+				patternIndex = starPatternIndex;
+			}
+			else if (anyPatternIndex >= 0)
+			{
+				pathIndex = ++anyPathIndex;
+				patternIndex = anyPatternIndex;
+				starPatternIndex = -1;
+			}
+			else return false;
+		}
+		while (patternIndex < m_pattern.length && m_pattern[patternIndex] == '*') patternIndex++;
+		return patternIndex == m_pattern.length;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return new String(m_pattern);
+	}
+}
@@ -0,0 +1,23 @@
+package org.nilsdku.eclipse.projectnamevalidator.rule;
+
+/**
+ * Правило, определяющее, допустимо ли имя проекта при
+ * данном имени его папки в файловой системе.
+ * Реализации регистрируются через точку расширения
+ * org.nilsdku.eclipse.projectnamevalidator.projectNameRules
+ * и создаются один раз. Метод accepts вызывается для
+ * каждого проверяемого проекта, поэтому он не должен
+ * выделять память и обращаться к рабочей области.
+ */
+public interface ProjectNameRule
+{
+	/**
+	 * @param a_projectName
+	 * 		  Имя проекта. NotNull
+	 * @param a_folderName
+	 * 		  Имя папки проекта. NotNull
+	 * @return true, если имя проекта допустимо для папки
+	 * a_folderName, false - иначе
+	 */
+	boolean accepts (String a_projectName, String a_folderName);
+}
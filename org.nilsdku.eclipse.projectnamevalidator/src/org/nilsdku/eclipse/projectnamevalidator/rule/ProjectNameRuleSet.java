@@ -0,0 +1,239 @@
+package org.nilsdku.eclipse.projectnamevalidator.rule;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.nilsdku.eclipse.projectnamevalidator.location.LocationResolver;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+
+/**
+ * Набор правил проверки имени проекта, скомпилированный
+ * один раз из вкладов в точку расширения projectNameRules.
+ * Имя проекта допустимо, если его принимает хотя бы одно
+ * правило. Проекты, расположение которых соответствует
+ * одному из шаблонов исключений, не проверяются. Правило
+ * ExactNameRule входит в набор всегда.
+ */
+public class ProjectNameRuleSet
+{
+	/**
+	 * Идентификатор точки расширения правил.
+	 */
+	public static final String EXTENSION_POINT_ID = "org.nilsdku.eclipse.projectnamevalidator.projectNameRules";
+	
+	private static final String ELEMENT_RULE = "rule";
+	
+	private static final String ELEMENT_CASE_INSENSITIVE = "caseInsensitive";
+	
+	private static final String ELEMENT_AFFIX = "affix";
+	
+	private static final String ELEMENT_EXEMPTION = "exemption";
+	
+	private static volatile ProjectNameRuleSet s_default;
+	
+	private ProjectNameRule[] m_rules;
+	
+	private PathGlob[] m_exemptions;
+	
+	private String m_fingerprint;
+	
+	/**
+	 * Конструктор класса ProjectNameRuleSet.
+	 * @param a_rules
+	 * 		  Правила. NotNull
+	 * @param a_exemptions
+	 * 		  Шаблоны расположений проектов, не требующих
+	 * 		  проверки. NotNull
+	 * @param a_fingerprint
+	 * 		  Строка, изменяющаяся при изменении набора правил.
+	 * 		  NotNull
+	 */
+	public ProjectNameRuleSet (List<ProjectNameRule> a_rules, List<PathGlob> a_exemptions, String a_fingerprint)
+	{
+		m_rules = a_rules.toArray(new ProjectNameRule[a_rules.size()]);
+		m_exemptions = a_exemptions.toArray(new PathGlob[a_exemptions.size()]);
+		m_fingerprint = Objects.requireNonNull(a_fingerprint);
+	}
+	
+	/**
+	 * @return набор правил, зарегистрированных в точке
+	 * расширения. Набор собирается при первом вызове
+	 */
+	public static ProjectNameRuleSet getDefault ()
+	{
+		ProjectNameRuleSet ruleSet = s_default;
+		if (ruleSet == null)
+		{
+			synchronized (ProjectNameRuleSet.class)
+			{
+				if (s_default == null) s_default = load();
+				ruleSet = s_default;
+			}
+		}
+		return ruleSet;
+	}
+	
+	/**
+	 * @param a_projectName
+	 * 		  Имя проекта. NotNull
+	 * @param a_folderName
+	 * 		  Имя папки проекта. Может быть null
+	 * @param a_project
+	 * 		  Проект, расположение которого сравнивается с
+	 * 		  шаблонами исключений. NotNull
+	 * @return true, если имя папки известно, ни одно правило
+	 * не принимает имя проекта и расположение проекта не
+	 * попадает в исключения, false - иначе
+	 */
+	public boolean hasProblemName (String a_projectName, String a_folderName, IProject a_project)
+	{
+		if (a_folderName == null || accepts(a_projectName, a_folderName)) return false;
+		return !isExempt(a_project);
+	}
+	
+	/**
+	 * @param a_projectName
+	 * 		  Имя проекта из файла .project. NotNull
+	 * @param a_folder
+	 * 		  Папка проекта, не импортированного в рабочую
+	 * 		  область. NotNull
+	 * @return true, если ни одно правило не принимает имя
+	 * проекта и папка не попадает в исключения, false - иначе
+	 */
+	public boolean hasProblemName (String a_projectName, Path a_folder)
+	{
+		Path fileName = a_folder.getFileName();
+		if (fileName == null || accepts(a_projectName, fileName.toString())) return false;
+		return m_exemptions.length == 0 || !isExempt(a_folder.toString().replace('\\', '/'));
+	}
+	
+	/**
+	 * @param a_projectName
+	 * 		  Имя проекта
+	 * @param a_folderName
+	 * 		  Имя папки проекта
+	 * @return true, если имя проекта принимает хотя бы одно
+	 * правило, false - иначе
+	 */
+	private boolean accepts (String a_projectName, String a_folderName)
+	{
+		for (ProjectNameRule rule : m_rules)
+		{
+			if (rule.accepts(a_projectName, a_folderName)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект. NotNull
+	 * @return true, если расположение проекта соответствует
+	 * одному из шаблонов исключений, false - иначе
+	 */
+	public boolean isExempt (IProject a_project)
+	{
+		/*
+		 * Строка пути создаётся, только если исключения заданы:*/
+		if (m_exemptions.length == 0) return false;
+		String path = LocationResolver.getLocationPath(a_project);
+		return path != null && isExempt(path);
+	}
+	
+	/**
+	 * @param a_path
+	 * 		  Путь с разделителем "/". NotNull
+	 * @return true, если путь соответствует одному из
+	 * шаблонов исключений, false - иначе
+	 */
+	public boolean isExempt (String a_path)
+	{
+		for (PathGlob exemption : m_exemptions)
+		{
+			if (exemption.matches(a_path)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @return строка, изменяющаяся при изменении набора
+	 * правил. Используется для того, чтобы не доверять
+	 * результатам проверки, полученным с другими правилами
+	 */
+	public String getFingerprint ()
+	{
+		return m_fingerprint;
+	}
+	
+	/**
+	 * Собирает набор правил из вкладов в точку расширения.
+	 * Ошибочные вклады логируются и пропускаются.
+	 * @return набор правил
+	 */
+	private static ProjectNameRuleSet load ()
+	{
+		List<ProjectNameRule> rules = new ArrayList<ProjectNameRule>();
+		List<PathGlob> exemptions = new ArrayList<PathGlob>();
+		StringBuilder fingerprint = new StringBuilder("exact");
+		rules.add(new ExactNameRule());
+		if (!Platform.isRunning()) return new ProjectNameRuleSet(rules, exemptions, fingerprint.toString());
+		boolean caseInsensitive = false;
+		for (IConfigurationElement element : Platform.getExtensionRegistry()
+													 .getConfigurationElementsFor(EXTENSION_POINT_ID))
+		{
+			String name = element.getName();
+			if (ELEMENT_CASE_INSENSITIVE.equals(name))
+			{
+				if (caseInsensitive) continue;
+				caseInsensitive = true;
+				rules.add(new CaseInsensitiveNameRule());
+				fingerprint.append(";caseInsensitive");
+			}
+			else if (ELEMENT_AFFIX.equals(name))
+			{
+				AffixNameRule rule = new AffixNameRule(getAttribute(element, "prefix"),
+													   getAttribute(element, "suffix"));
+				rules.add(rule);
+				fingerprint.append(';').append(rule);
+			}
+			else if (ELEMENT_EXEMPTION.equals(name))
+			{
+				PathGlob exemption = new PathGlob(getAttribute(element, "pathGlob"));
+				exemptions.add(exemption);
+				fingerprint.append(";exemption(").append(exemption).append(')');
+			}
+			else if (ELEMENT_RULE.equals(name))
+			{
+				try
+				{
+					rules.add((ProjectNameRule)element.createExecutableExtension("class"));
+					fingerprint.append(";rule(").append(element.getAttribute("class")).append(')');
+				}
+				catch (CoreException e)
+				{
+					ErrorStatusHandler.log(e, e.getMessage());
+				}
+			}
+		}
+		return new ProjectNameRuleSet(rules, exemptions, fingerprint.toString());
+	}
+	
+	/**
+	 * @param a_element
+	 * 		  Элемент вклада
+	 * @param a_name
+	 * 		  Имя атрибута
+	 * @return значение атрибута или пустая строка, если
+	 * атрибут не задан
+	 */
+	private static String getAttribute (IConfigurationElement a_element, String a_name)
+	{
+		String value = a_element.getAttribute(a_name);
+		return (value != null) ? value : "";
+	}
+}
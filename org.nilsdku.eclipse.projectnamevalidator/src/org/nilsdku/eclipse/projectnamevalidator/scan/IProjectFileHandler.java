@@ -0,0 +1,31 @@
+package org.nilsdku.eclipse.projectnamevalidator.scan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Интерфейс объекта, получающего результаты сканирования
+ * файлов .project. Методы вызываются из нескольких потоков
+ * одновременно.
+ */
+public interface IProjectFileHandler
+{
+	/**
+	 * Вызывается для каждой найденной папки проекта.
+	 * @param a_folder
+	 * 		  Папка, содержащая файл .project
+	 * @param a_projectName
+	 * 		  Имя проекта из файла .project
+	 */
+	void found (Path a_folder, String a_projectName);
+	
+	/**
+	 * Вызывается, если файл .project или папку не удалось
+	 * прочитать.
+	 * @param a_path
+	 * 		  Файл или папка
+	 * @param a_exception
+	 * 		  Исключение
+	 */
+	void failed (Path a_path, IOException a_exception);
+}
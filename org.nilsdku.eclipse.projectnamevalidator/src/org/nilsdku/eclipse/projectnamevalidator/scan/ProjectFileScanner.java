@@ -0,0 +1,176 @@
+package org.nilsdku.eclipse.projectnamevalidator.scan;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Объект, параллельно обходящий каталоги в поисках файлов
+ * .project. Обход выполняется средствами NIO до заданной
+ * глубины; скрытые каталоги и символические ссылки не
+ * обходятся. Найденные проекты сразу передаются обработчику
+ * IProjectFileHandler, поэтому в памяти одновременно
+ * находятся только списки подкаталогов каталогов,
+ * обходимых в данный момент. После отмены обхода через
+ * монитор новые подзадачи не создаются, а уже созданные
+ * завершаются без чтения каталогов.
+ */
+public class ProjectFileScanner
+{
+	/**
+	 * Имя файла описания проекта.
+	 */
+	public static final String PROJECT_FILE_NAME = ".project";
+	
+	/**
+	 * Глубина обхода по умолчанию.
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 8;
+	
+	private static final int MAX_PARALLELISM = 4;
+	
+	private int m_maxDepth;
+	
+	private IProjectFileHandler m_handler;
+	
+	private ProjectNameReader m_reader = new ProjectNameReader();
+	
+	/**
+	 * Монитор текущего обхода.
+	 */
+	private volatile IProgressMonitor m_monitor;
+	
+	/**
+	 * Конструктор класса ProjectFileScanner.
+	 * @param a_maxDepth
+	 * 		  Максимальная глубина обхода относительно корневых
+	 * 		  каталогов
+	 * @param a_handler
+	 * 		  Обработчик результатов. NotNull
+	 */
+	public ProjectFileScanner (int a_maxDepth, IProjectFileHandler a_handler)
+	{
+		m_maxDepth = a_maxDepth;
+		m_handler = Objects.requireNonNull(a_handler);
+	}
+	
+	/**
+	 * Обходит каталоги a_roots и возвращает управление после
+	 * завершения обхода.
+	 * @param a_roots
+	 * 		  Корневые каталоги. NotNull
+	 */
+	public void scan (List<Path> a_roots)
+	{
+		scan(a_roots, null);
+	}
+	
+	/**
+	 * Обходит каталоги a_roots и возвращает управление после
+	 * завершения или отмены обхода.
+	 * @param a_roots
+	 * 		  Корневые каталоги. NotNull
+	 * @param a_monitor
+	 * 		  Монитор, через который обход может быть отменён.
+	 * 		  Может быть null
+	 */
+	public void scan (List<Path> a_roots, IProgressMonitor a_monitor)
+	{
+		m_monitor = (a_monitor != null) ? a_monitor : new NullProgressMonitor();
+		int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLELISM));
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			List<DirectoryTask> tasks = new ArrayList<DirectoryTask>(a_roots.size());
+			for (Path root : a_roots) tasks.add(new DirectoryTask(root, 0));
+			pool.invoke(new RecursiveAction()
+			{
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected void compute ()
+				{
+					invokeAll(tasks);
+				}
+			});
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Задача обхода одного каталога.
+	 */
+	private class DirectoryTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private Path m_directory;
+		
+		private int m_depth;
+		
+		/**
+		 * Конструктор класса DirectoryTask.
+		 * @param a_directory
+		 * 		  Каталог
+		 * @param a_depth
+		 * 		  Глубина каталога относительно корневого
+		 */
+		DirectoryTask (Path a_directory, int a_depth)
+		{
+			m_directory = a_directory;
+			m_depth = a_depth;
+		}
+		
+		@Override
+		protected void compute ()
+		{
+			if (m_monitor.isCanceled()) return;
+			Path projectFile = m_directory.resolve(PROJECT_FILE_NAME);
+			if (Files.isRegularFile(projectFile, LinkOption.NOFOLLOW_LINKS))
+			{
+				try
+				{
+					String name = m_reader.readName(projectFile);
+					if (name != null) m_handler.found(m_directory, name);
+				}
+				catch (IOException e)
+				{
+					m_handler.failed(projectFile, e);
+				}
+			}
+			if (m_depth >= m_maxDepth) return;
+			List<DirectoryTask> subtasks = new ArrayList<DirectoryTask>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(m_directory))
+			{
+				for (Path child : stream)
+				{
+					if (m_monitor.isCanceled()) return;
+					Path fileName = child.getFileName();
+					if (fileName == null || fileName.toString().startsWith(".")) continue;
+					if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS))
+					{
+						subtasks.add(new DirectoryTask(child, m_depth + 1));
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				m_handler.failed(m_directory, e);
+			}
+			invokeAll(subtasks);
+		}
+	}
+}
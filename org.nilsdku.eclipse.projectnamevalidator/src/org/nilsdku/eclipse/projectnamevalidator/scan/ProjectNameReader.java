@@ -0,0 +1,82 @@
+package org.nilsdku.eclipse.projectnamevalidator.scan;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Объект, читающий имя проекта из файла .project.
+ * Файл читается потоковым парсером StAX только до
+ * элемента projectDescription/name, остальная часть
+ * файла не загружается.
+ */
+public class ProjectNameReader
+{
+	private static final String ELEMENT_PROJECT_DESCRIPTION = "projectDescription";
+	
+	private static final String ELEMENT_NAME = "name";
+	
+	private XMLInputFactory m_factory;
+	
+	/**
+	 * Конструктор класса ProjectNameReader. Обработка DTD
+	 * и внешних сущностей отключается.
+	 */
+	public ProjectNameReader ()
+	{
+		m_factory = XMLInputFactory.newInstance();
+		m_factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		m_factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		m_factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+	}
+	
+	/**
+	 * @param a_projectFile
+	 * 		  Файл .project. NotNull
+	 * @return имя проекта или null, если файл не содержит
+	 * элемента projectDescription/name
+	 * @throws IOException
+	 */
+	public String readName (Path a_projectFile) throws IOException
+	{
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(a_projectFile)))
+		{
+			XMLStreamReader reader = m_factory.createXMLStreamReader(input);
+			try
+			{
+				int depth = 0;
+				while (reader.hasNext())
+				{
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT)
+					{
+						depth++;
+						String localName = reader.getLocalName();
+						if (depth == 1 && !ELEMENT_PROJECT_DESCRIPTION.equals(localName)) return null;
+						if (depth == 2 && ELEMENT_NAME.equals(localName)) return reader.getElementText().trim();
+					}
+					else if (event == XMLStreamConstants.END_ELEMENT)
+					{
+						depth--;
+					}
+				}
+				return null;
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(a_projectFile + ": " + e.getMessage(), e);
+		}
+	}
+}
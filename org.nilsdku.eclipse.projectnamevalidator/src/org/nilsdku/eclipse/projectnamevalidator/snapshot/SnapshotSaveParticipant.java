@@ -0,0 +1,94 @@
+package org.nilsdku.eclipse.projectnamevalidator.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Участник сохранения рабочей области, записывающий
+ * снимок ValidationSnapshot при полном сохранении и
+ * при создании снимка рабочей области.
+ */
+public class SnapshotSaveParticipant implements ISaveParticipant
+{
+	private static final String SNAPSHOT_FILE_PREFIX = "validation-snapshot-";
+	
+	private ValidationSnapshot m_snapshot;
+	
+	private IWorkspace m_workspace;
+	
+	/**
+	 * Конструктор класса SnapshotSaveParticipant.
+	 * @param a_snapshot
+	 * 		  Сохраняемый снимок. NotNull
+	 * @param a_workspace
+	 * 		  Рабочая область, в сохранении которой участвует
+	 * 		  снимок. NotNull
+	 */
+	public SnapshotSaveParticipant (ValidationSnapshot a_snapshot, IWorkspace a_workspace)
+	{
+		m_snapshot = Objects.requireNonNull(a_snapshot);
+		m_workspace = Objects.requireNonNull(a_workspace);
+	}
+	
+	@Override
+	public void prepareToSave (ISaveContext a_context) throws CoreException
+	{
+	}
+	
+	@Override
+	public void saving (ISaveContext a_context) throws CoreException
+	{
+		if (a_context.getKind() == ISaveContext.PROJECT_SAVE) return;
+		m_snapshot.retain(m_workspace.getRoot().getProjects());
+		String fileName = SNAPSHOT_FILE_PREFIX + a_context.getSaveNumber();
+		try
+		{
+			m_snapshot.write(getFile(fileName));
+		}
+		catch (IOException e)
+		{
+			throw new CoreException(new Status(IStatus.ERROR,
+											   FrameworkUtil.getBundle(getClass()).getSymbolicName(),
+											   e.getMessage(), e));
+		}
+		a_context.map(new Path(ValidationSnapshot.SNAPSHOT_KEY), new Path(fileName));
+		a_context.needSaveNumber();
+	}
+	
+	@Override
+	public void doneSaving (ISaveContext a_context)
+	{
+		/*
+		 * Файл снимка предыдущего сохранения больше не нужен:*/
+		getFile(SNAPSHOT_FILE_PREFIX + a_context.getPreviousSaveNumber()).delete();
+	}
+	
+	@Override
+	public void rollback (ISaveContext a_context)
+	{
+		/*
+		 * Сохранение не удалось, файл текущего снимка
+		 * использоваться не будет:*/
+		getFile(SNAPSHOT_FILE_PREFIX + a_context.getSaveNumber()).delete();
+	}
+	
+	/**
+	 * @param a_fileName
+	 * 		  Имя файла снимка
+	 * @return файл снимка в каталоге состояния плагина
+	 */
+	private File getFile (String a_fileName)
+	{
+		return m_snapshot.getStateLocation().append(a_fileName).toFile();
+	}
+}
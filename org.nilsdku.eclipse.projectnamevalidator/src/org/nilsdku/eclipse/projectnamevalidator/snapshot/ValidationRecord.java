@@ -0,0 +1,84 @@
+package org.nilsdku.eclipse.projectnamevalidator.snapshot;
+
+import java.util.Objects;
+
+/**
+ * Результат последней проверки имени проекта,
+ * сохраняемый между сессиями.
+ */
+public class ValidationRecord
+{
+	private final String m_name;
+	
+	private final String m_folderName;
+	
+	private final boolean m_ignored;
+	
+	private final boolean m_problem;
+	
+	/**
+	 * Конструктор класса ValidationRecord.
+	 * @param a_name
+	 * 		  Имя проекта. NotNull
+	 * @param a_folderName
+	 * 		  Последний сегмент расположения проекта в
+	 * 		  файловой системе. NotNull
+	 * @param a_ignored
+	 * 		  true, если проект занесён в исключения
+	 * @param a_problem
+	 * 		  true, если на проекте стоит маркер проблемы
+	 */
+	public ValidationRecord (String a_name, String a_folderName, boolean a_ignored, boolean a_problem)
+	{
+		m_name = Objects.requireNonNull(a_name);
+		m_folderName = Objects.requireNonNull(a_folderName);
+		m_ignored = a_ignored;
+		m_problem = a_problem;
+	}
+	
+	/**
+	 * @return имя проекта
+	 */
+	public String getName ()
+	{
+		return m_name;
+	}
+	
+	/**
+	 * @return последний сегмент расположения проекта в
+	 * файловой системе
+	 */
+	public String getFolderName ()
+	{
+		return m_folderName;
+	}
+	
+	/**
+	 * @return true, если проект занесён в исключения
+	 */
+	public boolean isIgnored ()
+	{
+		return m_ignored;
+	}
+	
+	/**
+	 * @return true, если на проекте стоит маркер проблемы
+	 */
+	public boolean isProblem ()
+	{
+		return m_problem;
+	}
+	
+	/**
+	 * @param a_name
+	 * 		  Текущее имя проекта
+	 * @param a_folderName
+	 * 		  Текущий последний сегмент расположения проекта
+	 * @return true, если с момента проверки не изменились
+	 * ни имя, ни расположение проекта, false - иначе
+	 */
+	public boolean matches (String a_name, String a_folderName)
+	{
+		return m_name.equals(a_name) && m_folderName.equals(a_folderName);
+	}
+}
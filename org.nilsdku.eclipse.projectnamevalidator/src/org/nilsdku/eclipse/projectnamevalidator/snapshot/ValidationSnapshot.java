@@ -0,0 +1,246 @@
+package org.nilsdku.eclipse.projectnamevalidator.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Снимок результатов последней проверки имён проектов.
+ * Снимок сохраняется вместе с рабочей областью с помощью
+ * SnapshotSaveParticipant и позволяет при запуске
+ * проверять только проекты, имя или расположение которых
+ * изменились с момента последнего сохранения.
+ */
+public class ValidationSnapshot
+{
+	/**
+	 * Ключ, под которым файл снимка регистрируется в
+	 * контексте сохранения рабочей области.
+	 */
+	static final String SNAPSHOT_KEY = "validationSnapshot";
+	
+	/**
+	 * Версия формата файла снимка.
+	 */
+	private static final int FORMAT_VERSION = 2;
+	
+	private static ValidationSnapshot s_instance;
+	
+	private Map<String, ValidationRecord> m_records = new ConcurrentHashMap<String, ValidationRecord>();
+	
+	private boolean m_restored;
+	
+	/**
+	 * Отпечаток набора правил, с которыми получены
+	 * результаты проверки.
+	 */
+	private volatile String m_rulesFingerprint = "";
+	
+	/**
+	 * @return единственный объект снимка рабочей области
+	 */
+	public static synchronized ValidationSnapshot getInstance ()
+	{
+		if (s_instance == null) s_instance = new ValidationSnapshot();
+		return s_instance;
+	}
+	
+	/**
+	 * Регистрирует участника сохранения рабочей области и
+	 * загружает снимок, сохранённый в предыдущей сессии.
+	 * Повторные вызовы ничего не делают. Снимок, полученный
+	 * с другим набором правил, не загружается.
+	 * @param a_workspace
+	 * 		  Рабочая область
+	 * @param a_rulesFingerprint
+	 * 		  Отпечаток текущего набора правил ProjectNameRuleSet.
+	 * 		  NotNull
+	 * @throws CoreException
+	 */
+	public synchronized void restore (IWorkspace a_workspace, String a_rulesFingerprint) throws CoreException
+	{
+		if (m_restored) return;
+		m_restored = true;
+		m_rulesFingerprint = a_rulesFingerprint;
+		Bundle bundle = FrameworkUtil.getBundle(ValidationSnapshot.class);
+		ISavedState savedState = a_workspace.addSaveParticipant(bundle.getSymbolicName(),
+																new SnapshotSaveParticipant(this, a_workspace));
+		if (savedState == null) return;
+		IPath fileName = savedState.lookup(new Path(SNAPSHOT_KEY));
+		if (fileName == null) return;
+		File file = getStateLocation().append(fileName).toFile();
+		try
+		{
+			read(file);
+		}
+		catch (IOException e)
+		{
+			/*
+			 * Повреждённый снимок не используется, все
+			 * проекты будут проверены заново:*/
+			m_records.clear();
+		}
+	}
+	
+	/**
+	 * Запоминает результат проверки проекта.
+	 * @param a_project
+	 * 		  Проверенный проект
+	 * @param a_folderName
+	 * 		  Последний сегмент расположения проекта
+	 * @param a_ignored
+	 * 		  true, если проект занесён в исключения
+	 * @param a_problem
+	 * 		  true, если на проекте стоит маркер проблемы
+	 */
+	public void update (IProject a_project, String a_folderName, boolean a_ignored, boolean a_problem)
+	{
+		String name = a_project.getName();
+		if (a_folderName == null) m_records.remove(name);
+		else m_records.put(name, new ValidationRecord(name, a_folderName, a_ignored, a_problem));
+	}
+	
+	/**
+	 * @param a_project
+	 * 		  Проект
+	 * @return результат последней проверки проекта или null,
+	 * если проект не проверялся
+	 */
+	public ValidationRecord getRecord (IProject a_project)
+	{
+		return m_records.get(a_project.getName());
+	}
+	
+	/**
+	 * Отбирает проекты, имя или расположение которых
+	 * изменились с момента последней проверки, а также
+	 * проекты, которые ещё не проверялись.
+	 * @param a_projects
+	 * 		  Проекты рабочей области
+	 * @return проекты, требующие проверки
+	 */
+	public IProject[] getChangedProjects (IProject[] a_projects)
+	{
+		List<IProject> changed = new ArrayList<IProject>();
+		for (IProject project : a_projects)
+		{
+			ValidationRecord record = m_records.get(project.getName());
+			IPath location = project.getLocation();
+			String folderName = (location != null) ? location.lastSegment() : null;
+			if (record == null || !record.matches(project.getName(), folderName)) changed.add(project);
+		}
+		return changed.toArray(new IProject[changed.size()]);
+	}
+	
+	/**
+	 * Отбирает проекты, которые не изменились с момента
+	 * последней проверки и на которых по её результатам
+	 * стоял маркер проблемы.
+	 * @param a_projects
+	 * 		  Проекты рабочей области
+	 * @return проекты, маркеры которых нужно восстановить
+	 */
+	public List<IProject> getProblemProjects (IProject[] a_projects)
+	{
+		List<IProject> problems = new ArrayList<IProject>();
+		for (IProject project : a_projects)
+		{
+			ValidationRecord record = m_records.get(project.getName());
+			if (record == null || !record.isProblem()) continue;
+			IPath location = project.getLocation();
+			String folderName = (location != null) ? location.lastSegment() : null;
+			if (record.matches(project.getName(), folderName)) problems.add(project);
+		}
+		return problems;
+	}
+	
+	/**
+	 * Удаляет из снимка проекты, отсутствующие в рабочей
+	 * области.
+	 * @param a_projects
+	 * 		  Проекты рабочей области
+	 */
+	void retain (IProject[] a_projects)
+	{
+		Collection<String> names = new ArrayList<String>(a_projects.length);
+		for (IProject project : a_projects) names.add(project.getName());
+		m_records.keySet().retainAll(names);
+	}
+	
+	/**
+	 * @return каталог, в котором хранятся файлы снимка
+	 */
+	IPath getStateLocation ()
+	{
+		return Platform.getStateLocation(FrameworkUtil.getBundle(ValidationSnapshot.class));
+	}
+	
+	/**
+	 * Записывает снимок в файл.
+	 * @param a_file
+	 * 		  Файл снимка
+	 * @throws IOException
+	 */
+	void write (File a_file) throws IOException
+	{
+		List<ValidationRecord> records = new ArrayList<ValidationRecord>(m_records.values());
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(a_file))))
+		{
+			output.writeInt(FORMAT_VERSION);
+			output.writeUTF(m_rulesFingerprint);
+			output.writeInt(records.size());
+			for (ValidationRecord record : records)
+			{
+				output.writeUTF(record.getName());
+				output.writeUTF(record.getFolderName());
+				output.writeBoolean(record.isIgnored());
+				output.writeBoolean(record.isProblem());
+			}
+		}
+	}
+	
+	/**
+	 * Читает снимок из файла.
+	 * @param a_file
+	 * 		  Файл снимка
+	 * @throws IOException
+	 */
+	private void read (File a_file) throws IOException
+	{
+		if (!a_file.isFile()) return;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(a_file))))
+		{
+			if (input.readInt() != FORMAT_VERSION) return;
+			if (!m_rulesFingerprint.equals(input.readUTF())) return;
+			int count = input.readInt();
+			for (int i = 0; i < count; i++)
+			{
+				String name = input.readUTF();
+				String folderName = input.readUTF();
+				boolean ignored = input.readBoolean();
+				boolean problem = input.readBoolean();
+				m_records.put(name, new ValidationRecord(name, folderName, ignored, problem));
+			}
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package org.nilsdku.eclipse.projectnamevalidator.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Слушатель, записывающий дельты проектов из событий
+ * изменения ресурсов в файл в формате TraceFormat для
+ * последующего воспроизведения EventTraceReplayer.
+ * Запись включается опцией отладки
+ * org.nilsdku.eclipse.projectnamevalidator/debug/eventTrace
+ * (файл .options); файлы записи создаются в каталоге
+ * состояния плагина.
+ */
+public class EventTraceRecorder implements IResourceChangeListener
+{
+	private static final String OPTION_DEBUG = "/debug";
+	
+	private static final String OPTION_EVENT_TRACE = "/debug/eventTrace";
+	
+	private DataOutputStream m_output;
+	
+	private Map<String, Integer> m_strings = new HashMap<String, Integer>();
+	
+	private long m_lastEventTime;
+	
+	/**
+	 * Конструктор класса EventTraceRecorder. Создаёт файл
+	 * записи и записывает его заголовок.
+	 * @param a_file
+	 * 		  Файл записи. NotNull
+	 * @throws IOException
+	 */
+	public EventTraceRecorder (File a_file) throws IOException
+	{
+		m_output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(a_file)));
+		m_output.writeInt(TraceFormat.MAGIC);
+		writeVarLong(TraceFormat.VERSION);
+		m_output.flush();
+		m_lastEventTime = System.nanoTime();
+	}
+	
+	/**
+	 * Начинает запись событий рабочей области a_workspace,
+	 * если она включена опцией отладки.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @return слушатель, выполняющий запись, или null, если
+	 * запись выключена или файл не удалось создать
+	 */
+	public static EventTraceRecorder startIfEnabled (IWorkspace a_workspace)
+	{
+		String bundleName = FrameworkUtil.getBundle(EventTraceRecorder.class).getSymbolicName();
+		if (!Platform.inDebugMode() || !isOptionSet(bundleName + OPTION_DEBUG) ||
+			!isOptionSet(bundleName + OPTION_EVENT_TRACE))
+		{
+			return null;
+		}
+		IPath stateLocation = Platform.getStateLocation(FrameworkUtil.getBundle(EventTraceRecorder.class));
+		File file = stateLocation.append("events-" + System.currentTimeMillis() + ".trace").toFile();
+		try
+		{
+			EventTraceRecorder recorder = new EventTraceRecorder(file);
+			a_workspace.addResourceChangeListener(recorder, IResourceChangeEvent.POST_CHANGE);
+			return recorder;
+		}
+		catch (IOException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Записывает дельты проектов события. Файл
+	 * сбрасывается на диск после каждого события, чтобы
+	 * запись сохранилась при аварийном завершении.
+	 */
+	@Override
+	public synchronized void resourceChanged (IResourceChangeEvent a_event)
+	{
+		IResourceDelta rootDelta = a_event.getDelta();
+		if (m_output == null || rootDelta == null) return;
+		IResourceDelta[] projectDeltas = rootDelta.getAffectedChildren();
+		long now = System.nanoTime();
+		try
+		{
+			writeVarLong(TimeUnit.NANOSECONDS.toMillis(now - m_lastEventTime));
+			writeVarLong(a_event.getType());
+			writeVarLong(projectDeltas.length);
+			for (IResourceDelta delta : projectDeltas)
+			{
+				IProject project = (IProject)delta.getResource();
+				IPath location = project.getLocation();
+				writeVarLong(delta.getKind());
+				writeVarLong(delta.getFlags());
+				m_output.writeBoolean(project.isOpen());
+				TraceFormat.writeString(m_output, m_strings, project.getName());
+				TraceFormat.writeString(m_output, m_strings, (location != null) ? location.toString() : null);
+			}
+			m_output.flush();
+			m_lastEventTime = now;
+		}
+		catch (IOException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+			close();
+		}
+	}
+	
+	/**
+	 * Закрывает файл записи. Последующие события не
+	 * записываются.
+	 */
+	public synchronized void close ()
+	{
+		if (m_output == null) return;
+		try
+		{
+			m_output.close();
+		}
+		catch (IOException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+		m_output = null;
+	}
+	
+	/**
+	 * @param a_value
+	 * 		  Неотрицательное число
+	 * @throws IOException
+	 */
+	private void writeVarLong (long a_value) throws IOException
+	{
+		TraceFormat.writeVarLong(m_output, a_value);
+	}
+	
+	/**
+	 * @param a_option
+	 * 		  Имя опции отладки
+	 * @return true, если опция установлена в значение true
+	 */
+	private static boolean isOptionSet (String a_option)
+	{
+		return Boolean.parseBoolean(Platform.getDebugOption(a_option));
+	}
+}
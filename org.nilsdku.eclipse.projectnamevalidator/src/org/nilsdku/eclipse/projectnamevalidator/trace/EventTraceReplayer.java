@@ -0,0 +1,242 @@
+package org.nilsdku.eclipse.projectnamevalidator.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.ProjectDeltaVisitor;
+import org.nilsdku.eclipse.projectnamevalidator.job.ProjectValidationJob;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+
+/**
+ * Объект, воспроизводящий события, записанные
+ * EventTraceRecorder, на проектах-заменителях рабочей
+ * области. Дельты каждого события отбираются
+ * ProjectDeltaVisitor так же, как слушателем
+ * ChangedNameValidator, и ставятся в очередь задания
+ * проверки. События воспроизводятся с исходными
+ * интервалами или без задержек.
+ * Проект-заменитель создаётся для каждого записанного
+ * имени, которого нет в рабочей области, в подкаталоге
+ * каталога заменителей с именем папки из первой дельты
+ * этого проекта, поэтому несовпадения имён
+ * воспроизводятся. Дельты проектов, уже существующих в
+ * рабочей области, пропускаются, чтобы воспроизведение не
+ * открывало и не проверяло настоящие проекты.
+ * Заменители удаляются методом deleteStandInProjects.
+ */
+public class EventTraceReplayer
+{
+	private ChangedNameValidator m_validator;
+	
+	private IWorkspace m_workspace;
+	
+	private File m_standInRoot;
+	
+	/**
+	 * Проекты-заменители, созданные данным объектом.
+	 */
+	private Set<IProject> m_standInProjects = new LinkedHashSet<IProject>();
+	
+	/**
+	 * Конструктор класса EventTraceReplayer.
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 * @param a_workspace
+	 * 		  Рабочая область с проектами-заменителями. NotNull
+	 * @param a_standInRoot
+	 * 		  Каталог, в котором создаются папки
+	 * 		  проектов-заменителей. NotNull
+	 */
+	public EventTraceReplayer (ChangedNameValidator a_validator, IWorkspace a_workspace, File a_standInRoot)
+	{
+		m_validator = Objects.requireNonNull(a_validator);
+		m_workspace = Objects.requireNonNull(a_workspace);
+		m_standInRoot = Objects.requireNonNull(a_standInRoot);
+	}
+	
+	/**
+	 * Читает файл записи до конца. Последнее событие,
+	 * записанное не полностью (например, при аварийном
+	 * завершении среды разработки), отбрасывается.
+	 * @param a_file
+	 * 		  Файл записи. NotNull
+	 * @return записанные события
+	 * @throws IOException
+	 */
+	public static List<TracedEvent> read (File a_file) throws IOException
+	{
+		List<TracedEvent> events = new ArrayList<TracedEvent>();
+		List<String> strings = new ArrayList<String>();
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(a_file))))
+		{
+			if (input.readInt() != TraceFormat.MAGIC) throw new IOException("Not an event trace: " + a_file);
+			long version = TraceFormat.readVarLong(input);
+			if (version != TraceFormat.VERSION) throw new IOException("Unsupported trace version: " + version);
+			while (true)
+			{
+				long delay = TraceFormat.readVarLong(input);
+				int type = (int)TraceFormat.readVarLong(input);
+				int count = (int)TraceFormat.readVarLong(input);
+				List<TracedProjectDelta> deltas = new ArrayList<TracedProjectDelta>(count);
+				for (int i = 0; i < count; i++)
+				{
+					int kind = (int)TraceFormat.readVarLong(input);
+					int flags = (int)TraceFormat.readVarLong(input);
+					boolean open = input.readBoolean();
+					String name = TraceFormat.readString(input, strings);
+					String location = TraceFormat.readString(input, strings);
+					if (name == null) throw new IOException("Missing project name in " + a_file);
+					deltas.add(new TracedProjectDelta(kind, flags, open, name, location));
+				}
+				events.add(new TracedEvent(delay, type, deltas));
+			}
+		}
+		catch (EOFException e)
+		{
+			/*
+			 * Конец записи:*/
+		}
+		return events;
+	}
+	
+	/**
+	 * Создаёт и открывает проекты-заменители для всех имён,
+	 * встречающихся в записи и отсутствующих в рабочей
+	 * области, одной операцией над рабочей областью. Папки
+	 * всех заменителей создаются в каталоге заменителей.
+	 * Существующие проекты не изменяются и не открываются.
+	 * @param a_events
+	 * 		  Записанные события. NotNull
+	 * @param a_monitor
+	 * 		  Монитор прогресса. Может быть null
+	 * @throws CoreException
+	 */
+	public void createStandInProjects (List<TracedEvent> a_events, IProgressMonitor a_monitor)
+		throws CoreException
+	{
+		Map<String, String> locations = new LinkedHashMap<String, String>();
+		for (TracedEvent event : a_events)
+		{
+			for (TracedProjectDelta delta : event.getDeltas())
+			{
+				if (!locations.containsKey(delta.getName())) locations.put(delta.getName(), delta.getLocation());
+			}
+		}
+		m_workspace.run(new IWorkspaceRunnable()
+		{
+			@Override
+			public void run (IProgressMonitor a_runMonitor) throws CoreException
+			{
+				SubMonitor monitor = SubMonitor.convert(a_runMonitor, locations.size());
+				int index = 0;
+				for (Map.Entry<String, String> entry : locations.entrySet())
+				{
+					IProject project = m_workspace.getRoot().getProject(entry.getKey());
+					if (project.exists())
+					{
+						monitor.worked(1);
+						continue;
+					}
+					IProjectDescription description = m_workspace.newProjectDescription(entry.getKey());
+					String folderName = (entry.getValue() != null) ? new Path(entry.getValue()).lastSegment() : null;
+					if (folderName == null) folderName = entry.getKey();
+					File folder = new File(new File(m_standInRoot, Integer.toString(index)), folderName);
+					description.setLocation(Path.fromOSString(folder.getAbsolutePath()));
+					project.create(description, monitor.newChild(1));
+					m_standInProjects.add(project);
+					index++;
+					project.open(null);
+				}
+			}
+		}, m_workspace.getRoot(), IWorkspace.AVOID_UPDATE, a_monitor);
+	}
+	
+	/**
+	 * Воспроизводит события и дожидается окончания вызванных
+	 * ими проверок. Обработка каждого события учитывается как
+	 * Operation.LISTENER_EVENT. События, не затрагивающие
+	 * проектов-заменителей, пропускаются.
+	 * @param a_events
+	 * 		  Записанные события. NotNull
+	 * @param a_originalSpeed
+	 * 		  true - выдерживать записанные интервалы между
+	 * 		  событиями, false - воспроизводить без задержек
+	 * @return количество воспроизведённых событий
+	 * @throws InterruptedException
+	 */
+	public int replay (List<TracedEvent> a_events, boolean a_originalSpeed) throws InterruptedException
+	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		int replayed = 0;
+		for (TracedEvent event : a_events)
+		{
+			if (event.getType() != IResourceChangeEvent.POST_CHANGE) continue;
+			if (a_originalSpeed && event.getDelay() > 0) Thread.sleep(event.getDelay());
+			long startTime = metrics.start();
+			ProjectDeltaVisitor visitor = new ProjectDeltaVisitor();
+			boolean standInChanged = false;
+			for (TracedProjectDelta delta : event.getDeltas())
+			{
+				IProject project = m_workspace.getRoot().getProject(delta.getName());
+				if (!m_standInProjects.contains(project)) continue;
+				visitor.addProject(project, delta.getKind(), delta.getFlags(), delta.isOpen());
+				standInChanged = true;
+			}
+			if (!standInChanged) continue;
+			m_validator.scheduleValidation(visitor);
+			metrics.record(Operation.LISTENER_EVENT, startTime);
+			replayed++;
+		}
+		Job.getJobManager().join(ProjectValidationJob.FAMILY, null);
+		return replayed;
+	}
+	
+	/**
+	 * Удаляет проекты-заменители, созданные методом
+	 * createStandInProjects, вместе с их папками, одной
+	 * операцией над рабочей областью.
+	 * @param a_monitor
+	 * 		  Монитор прогресса. Может быть null
+	 * @throws CoreException
+	 */
+	public void deleteStandInProjects (IProgressMonitor a_monitor) throws CoreException
+	{
+		if (m_standInProjects.isEmpty()) return;
+		m_workspace.run(new IWorkspaceRunnable()
+		{
+			@Override
+			public void run (IProgressMonitor a_runMonitor) throws CoreException
+			{
+				SubMonitor monitor = SubMonitor.convert(a_runMonitor, m_standInProjects.size());
+				for (IProject project : m_standInProjects)
+				{
+					project.delete(true, true, monitor.newChild(1));
+				}
+				m_standInProjects.clear();
+			}
+		}, m_workspace.getRoot(), IWorkspace.AVOID_UPDATE, a_monitor);
+	}
+}
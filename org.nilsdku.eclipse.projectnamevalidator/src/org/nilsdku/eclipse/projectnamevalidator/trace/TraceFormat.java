@@ -0,0 +1,135 @@
+package org.nilsdku.eclipse.projectnamevalidator.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Константы и вспомогательные методы двоичного формата
+ * файла записи событий изменения ресурсов.
+ * Файл начинается с MAGIC и VERSION, за которыми следуют
+ * события: задержка относительно предыдущего события (в
+ * миллисекундах), тип события, количество дельт проектов
+ * и сами дельты (вид, флаги, признак открытости, имя и
+ * расположение проекта). Целые числа записываются в
+ * формате переменной длины, а повторяющиеся строки -
+ * номером в таблице уже записанных строк.
+ */
+final class TraceFormat
+{
+	/**
+	 * Сигнатура файла записи.
+	 */
+	static final int MAGIC = 0x504E5654;
+	
+	/**
+	 * Версия формата файла записи.
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * Код отсутствующей строки.
+	 */
+	private static final int NULL_STRING = 0;
+	
+	/**
+	 * Код строки, записанной впервые.
+	 */
+	private static final int NEW_STRING = 1;
+	
+	private TraceFormat ()
+	{
+	}
+	
+	/**
+	 * Записывает неотрицательное число в формате переменной
+	 * длины (по 7 бит в байте).
+	 * @param a_output
+	 * 		  Поток вывода
+	 * @param a_value
+	 * 		  Неотрицательное число
+	 * @throws IOException
+	 */
+	static void writeVarLong (DataOutput a_output, long a_value) throws IOException
+	{
+		while ((a_value & ~0x7FL) != 0)
+		{
+			a_output.writeByte((int)((a_value & 0x7F) | 0x80));
+			a_value >>>= 7;
+		}
+		a_output.writeByte((int)a_value);
+	}
+	
+	/**
+	 * @param a_input
+	 * 		  Поток ввода
+	 * @return число, записанное методом writeVarLong
+	 * @throws IOException
+	 */
+	static long readVarLong (DataInput a_input) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7)
+		{
+			int b = a_input.readUnsignedByte();
+			value |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed variable-length number");
+	}
+	
+	/**
+	 * Записывает строку или номер, под которым она уже
+	 * была записана.
+	 * @param a_output
+	 * 		  Поток вывода
+	 * @param a_strings
+	 * 		  Таблица записанных строк
+	 * @param a_string
+	 * 		  Строка. Может быть null
+	 * @throws IOException
+	 */
+	static void writeString (DataOutput a_output, Map<String, Integer> a_strings, String a_string)
+		throws IOException
+	{
+		if (a_string == null)
+		{
+			writeVarLong(a_output, NULL_STRING);
+			return;
+		}
+		Integer index = a_strings.get(a_string);
+		if (index != null)
+		{
+			writeVarLong(a_output, index + 2);
+			return;
+		}
+		writeVarLong(a_output, NEW_STRING);
+		a_output.writeUTF(a_string);
+		a_strings.put(a_string, a_strings.size());
+	}
+	
+	/**
+	 * @param a_input
+	 * 		  Поток ввода
+	 * @param a_strings
+	 * 		  Таблица прочитанных строк
+	 * @return строка, записанная методом writeString. Может
+	 * быть null
+	 * @throws IOException
+	 */
+	static String readString (DataInput a_input, List<String> a_strings) throws IOException
+	{
+		long code = readVarLong(a_input);
+		if (code == NULL_STRING) return null;
+		if (code == NEW_STRING)
+		{
+			String string = a_input.readUTF();
+			a_strings.add(string);
+			return string;
+		}
+		if (code - 2 >= a_strings.size()) throw new IOException("Unknown string reference: " + code);
+		return a_strings.get((int)(code - 2));
+	}
+}
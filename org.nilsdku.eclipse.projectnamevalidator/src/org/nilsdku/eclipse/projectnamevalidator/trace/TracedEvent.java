@@ -0,0 +1,58 @@
+package org.nilsdku.eclipse.projectnamevalidator.trace;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Записанное событие изменения ресурсов.
+ */
+public final class TracedEvent
+{
+	private final long m_delay;
+	
+	private final int m_type;
+	
+	private final List<TracedProjectDelta> m_deltas;
+	
+	/**
+	 * Конструктор класса TracedEvent.
+	 * @param a_delay
+	 * 		  Время (в миллисекундах), прошедшее с предыдущего
+	 * 		  события
+	 * @param a_type
+	 * 		  Тип события IResourceChangeEvent.getType
+	 * @param a_deltas
+	 * 		  Дельты проектов. NotNull
+	 */
+	public TracedEvent (long a_delay, int a_type, List<TracedProjectDelta> a_deltas)
+	{
+		m_delay = a_delay;
+		m_type = a_type;
+		m_deltas = Collections.unmodifiableList(a_deltas);
+	}
+	
+	/**
+	 * @return время (в миллисекундах), прошедшее с
+	 * предыдущего события
+	 */
+	public long getDelay ()
+	{
+		return m_delay;
+	}
+	
+	/**
+	 * @return тип события
+	 */
+	public int getType ()
+	{
+		return m_type;
+	}
+	
+	/**
+	 * @return дельты проектов
+	 */
+	public List<TracedProjectDelta> getDeltas ()
+	{
+		return m_deltas;
+	}
+}
@@ -0,0 +1,83 @@
+package org.nilsdku.eclipse.projectnamevalidator.trace;
+
+import java.util.Objects;
+
+/**
+ * Записанная дельта изменения одного проекта.
+ */
+public final class TracedProjectDelta
+{
+	private final int m_kind;
+	
+	private final int m_flags;
+	
+	private final boolean m_open;
+	
+	private final String m_name;
+	
+	private final String m_location;
+	
+	/**
+	 * Конструктор класса TracedProjectDelta.
+	 * @param a_kind
+	 * 		  Вид дельты IResourceDelta.getKind
+	 * @param a_flags
+	 * 		  Флаги дельты IResourceDelta.getFlags
+	 * @param a_open
+	 * 		  true, если проект был открыт
+	 * @param a_name
+	 * 		  Имя проекта. NotNull
+	 * @param a_location
+	 * 		  Расположение проекта в файловой системе. Может
+	 * 		  быть null
+	 */
+	public TracedProjectDelta (int a_kind, int a_flags, boolean a_open, String a_name, String a_location)
+	{
+		m_kind = a_kind;
+		m_flags = a_flags;
+		m_open = a_open;
+		m_name = Objects.requireNonNull(a_name);
+		m_location = a_location;
+	}
+	
+	/**
+	 * @return вид дельты
+	 */
+	public int getKind ()
+	{
+		return m_kind;
+	}
+	
+	/**
+	 * @return флаги дельты
+	 */
+	public int getFlags ()
+	{
+		return m_flags;
+	}
+	
+	/**
+	 * @return true, если проект был открыт
+	 */
+	public boolean isOpen ()
+	{
+		return m_open;
+	}
+	
+	/**
+	 * @return имя проекта
+	 */
+	public String getName ()
+	{
+		return m_name;
+	}
+	
+	/**
+	 * @return расположение проекта в файловой системе или
+	 * null, если оно было неизвестно
+	 */
+	public String getLocation ()
+	{
+		return m_location;
+	}
+}
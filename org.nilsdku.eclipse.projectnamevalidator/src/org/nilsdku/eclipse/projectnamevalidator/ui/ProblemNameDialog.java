@@ -3,7 +3,6 @@ package org.nilsdku.eclipse.projectnamevalidator.ui;
 import java.util.Objects;
 
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.swt.SWT;
@@ -14,25 +13,30 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.ui.PlatformUI;
 import org.nilsdku.eclipse.projectnamevalidator.Messages;
-import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
-import org.nilsdku.eclipse.projectnamevalidator.property.RenameIgnoringProperty;
 
 /**
  * Диалог, предупреждающий пользователя о том,
  * что переименовывать проект нежелательно, и
  * предлагающий добавить проект в исключения.
+ * Диалог только запоминает решение пользователя;
+ * записывает его задание IgnoreListUpdateJob вне
+ * потока Display.
  */
 public class ProblemNameDialog extends Dialog
 {
 	private String m_warningMessage = "";
 	
-	private RenameIgnoringProperty m_property;
+	private IProject m_project;
+	
+	/**
+	 * Решение пользователя или null, если окно закрыто
+	 * без выбора.
+	 */
+	private Boolean m_ignored;
 	
 	/**
 	 * Конструктор класса ProblemNameDialog.
-	 * Создаёт объект класса RenameIgnoringProperty
-	 * для проекта a_project и устанавливает
-	 * предупреждающее сообщение.
+	 * Устанавливает предупреждающее сообщение.
 	 * @param a_project
 	 * 		  Проект, с которым связано диалоговое
 	 * 		  окно
@@ -40,7 +44,7 @@ public class ProblemNameDialog extends Dialog
 	public ProblemNameDialog (IProject a_project)
 	{
 		super(PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell());
-		m_property = new RenameIgnoringProperty(Objects.requireNonNull(a_project));
+		m_project = Objects.requireNonNull(a_project);
 		setWarningMessage(a_project);
 	}
 	
@@ -80,11 +84,10 @@ public class ProblemNameDialog extends Dialog
 	public void okPressed()
 	{
 		/*
-		 * Установка свойству RenameIgnoringProperty
-		 * значения true, что означает, что проект
-		 * находится в исключениях:
+		 * Значение true свойства RenameIgnoringProperty
+		 * означает, что проект находится в исключениях:
 		 */
-		setRenameIgnoringProperty(true);
+		m_ignored = Boolean.TRUE;
 		super.okPressed();
 	}
 	
@@ -92,29 +95,28 @@ public class ProblemNameDialog extends Dialog
 	public void cancelPressed()
 	{
 		/*
-		 * Установка свойству RenameIgnoringProperty
-		 * значения false, что означает, что проект
-		 * не находится в исключениях:
+		 * Значение false свойства RenameIgnoringProperty
+		 * означает, что проект не находится в исключениях:
 		 */
-		setRenameIgnoringProperty(false);
+		m_ignored = Boolean.FALSE;
 		super.cancelPressed();
 	}
 	
 	/**
-	 * Устанавливает значение свойства
-	 * RenameIgnoringProperty.
-	 * @param a_property
-	 * 		  Значение свойства RenameIgnoringProperty
+	 * @return проект, с которым связано диалоговое окно
+	 */
+	public IProject getProject ()
+	{
+		return m_project;
+	}
+	
+	/**
+	 * @return значение свойства RenameIgnoringProperty,
+	 * выбранное пользователем, или null, если окно закрыто
+	 * без выбора
 	 */
-	private void setRenameIgnoringProperty (boolean a_property)
+	public Boolean getDecision ()
 	{
-		try
-		{
-			m_property.setValue(a_property);
-		}
-		catch (CoreException e)
-		{
-			ErrorStatusHandler.log(e, e.getMessage());
-		}
+		return m_ignored;
 	}
 }
@@ -0,0 +1,175 @@
+package org.nilsdku.eclipse.projectnamevalidator.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.IWarningDialogOpener;
+import org.nilsdku.eclipse.projectnamevalidator.job.IgnoreListUpdateJob;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+
+/**
+ * Объект, асинхронно показывающий предупреждения о
+ * несовпадении имён в потоке Display.
+ * Проекты, для которых предупреждение запрошено в течение
+ * BURST_DELAY миллисекунд (например, при импорте многих
+ * проектов), собираются вместе: для одного проекта
+ * показывается диалог ProblemNameDialog, для нескольких -
+ * один общий диалог ProblemNamesDialog. Создание окна
+ * учитывается как Operation.UI_THREAD, время ожидания
+ * решения пользователя - нет.
+ */
+public class ProblemNameDialogOpener implements IWarningDialogOpener
+{
+	/**
+	 * Время (в миллисекундах), в течение которого
+	 * запрошенные предупреждения объединяются.
+	 */
+	private static final int BURST_DELAY = 500;
+	
+	private ChangedNameValidator m_validator;
+	
+	/**
+	 * Проекты, для которых диалоговое окно с предупреждением
+	 * уже показано или ожидает показа.
+	 */
+	private Set<IProject> m_dialogProjects = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * Проекты, ожидающие показа предупреждения.
+	 */
+	private Set<IProject> m_pendingProjects = new LinkedHashSet<IProject>();
+	
+	/**
+	 * Конструктор класса ProblemNameDialogOpener.
+	 * @param a_validator
+	 * 		  Объект, выполняющий повторную проверку проекта
+	 * 		  после закрытия диалогового окна. NotNull
+	 */
+	public ProblemNameDialogOpener (ChangedNameValidator a_validator)
+	{
+		m_validator = Objects.requireNonNull(a_validator);
+	}
+	
+	/**
+	 * Добавляет проект a_project к проектам, для которых
+	 * будет показано предупреждение, если оно ещё не показано
+	 * для этого проекта. После закрытия окна проекты ставятся
+	 * в очередь на повторную проверку: если пользователь занёс
+	 * проект в исключения, маркер будет удалён.
+	 * @param a_project
+	 * 		  Проект, с которым связано диалоговое окно
+	 */
+	@Override
+	public void open (IProject a_project)
+	{
+		if (!m_dialogProjects.add(a_project)) return;
+		boolean first;
+		synchronized (m_pendingProjects)
+		{
+			first = m_pendingProjects.isEmpty();
+			m_pendingProjects.add(a_project);
+		}
+		if (!first) return;
+		Display display = PlatformUI.getWorkbench().getDisplay();
+		display.asyncExec(new Runnable()
+		{
+			@Override
+			public void run ()
+			{
+				display.timerExec(BURST_DELAY, new Runnable()
+				{
+					@Override
+					public void run ()
+					{
+						showPendingProjects();
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Показывает предупреждение для всех ожидающих проектов.
+	 * Вызывается в потоке Display.
+	 */
+	private void showPendingProjects ()
+	{
+		List<IProject> projects;
+		synchronized (m_pendingProjects)
+		{
+			projects = new ArrayList<IProject>(m_pendingProjects);
+			m_pendingProjects.clear();
+		}
+		if (projects.isEmpty()) return;
+		try
+		{
+			if (projects.size() == 1)
+			{
+				ProblemNameDialog dialog = new ProblemNameDialog(projects.get(0));
+				create(dialog);
+				dialog.open();
+				IProject project = dialog.getProject();
+				if (dialog.getDecision() != null && project.isOpen())
+				{
+					/*
+					 * Решение записывается и проект проверяется
+					 * повторно вне потока Display:*/
+					new IgnoreListUpdateJob(m_validator, Collections.singletonMap(project, dialog.getDecision()))
+						.schedule();
+				}
+				else m_validator.scheduleValidation(Collections.singleton(project), false);
+			}
+			else
+			{
+				IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+				ProblemNamesDialog dialog = new ProblemNamesDialog((window != null) ? window.getShell() : null,
+																   projects);
+				create(dialog);
+				dialog.open();
+				/*
+				 * Все решения пользователя записываются одной
+				 * операцией вне потока Display:*/
+				new IgnoreListUpdateJob(m_validator, dialog.getDecisions()).schedule();
+			}
+		}
+		finally
+		{
+			m_dialogProjects.removeAll(projects);
+		}
+	}
+	
+	/**
+	 * Создаёт элементы диалогового окна до его показа и
+	 * учитывает длительность создания как
+	 * Operation.UI_THREAD. Вызывается в потоке Display.
+	 * @param a_dialog
+	 * 		  Диалоговое окно
+	 */
+	private static void create (Dialog a_dialog)
+	{
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		UiThreadWatchdog.getInstance().enter();
+		try
+		{
+			a_dialog.create();
+		}
+		finally
+		{
+			UiThreadWatchdog.getInstance().exit();
+			metrics.record(Operation.UI_THREAD, startTime);
+		}
+	}
+}
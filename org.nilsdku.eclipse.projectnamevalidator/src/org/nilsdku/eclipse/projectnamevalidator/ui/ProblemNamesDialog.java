@@ -0,0 +1,193 @@
+package org.nilsdku.eclipse.projectnamevalidator.ui;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+
+/**
+ * Диалог, предупреждающий пользователя о несовпадении
+ * имён сразу нескольких проектов (например, после
+ * импорта) и предлагающий выбрать, какие из них занести
+ * в исключения. Проекты показываются в виртуальной
+ * таблице, строки которой создаются только при
+ * отображении.
+ */
+public class ProblemNamesDialog extends Dialog
+{
+	private IProject[] m_projects;
+	
+	/**
+	 * Признаки занесения проектов в исключения, по одному
+	 * на строку таблицы.
+	 */
+	private boolean[] m_ignored;
+	
+	private Table m_table;
+	
+	/**
+	 * Конструктор класса ProblemNamesDialog.
+	 * @param a_shell
+	 * 		  Родительское окно
+	 * @param a_projects
+	 * 		  Проекты, имена которых не совпадают с именами
+	 * 		  их папок. NotNull
+	 */
+	public ProblemNamesDialog (Shell a_shell, List<IProject> a_projects)
+	{
+		super(a_shell);
+		m_projects = a_projects.toArray(new IProject[a_projects.size()]);
+		m_ignored = new boolean[m_projects.length];
+		setShellStyle(getShellStyle() | SWT.RESIZE);
+	}
+	
+	@Override
+	protected void configureShell (Shell a_shell)
+	{
+		super.configureShell(a_shell);
+		a_shell.setText(Messages.Problem_Names_Dialog_Title);
+	}
+	
+	@Override
+	public Control createDialogArea (Composite a_parent)
+	{
+		Composite composite = (Composite)super.createDialogArea(a_parent);
+		composite.setLayout(new GridLayout(2, false));
+		
+		Label messageLabel = new Label(composite, SWT.WRAP);
+		messageLabel.setText(String.format(Messages.Problem_Names_Dialog_Message, m_projects.length));
+		GridData messageData = new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1);
+		messageData.widthHint = 500;
+		messageLabel.setLayoutData(messageData);
+		
+		m_table = new Table(composite, SWT.VIRTUAL | SWT.CHECK | SWT.MULTI | SWT.FULL_SELECTION | SWT.BORDER);
+		m_table.setHeaderVisible(true);
+		GridData tableData = new GridData(SWT.FILL, SWT.FILL, true, true);
+		tableData.heightHint = 300;
+		m_table.setLayoutData(tableData);
+		createColumn(Messages.Problem_Names_Dialog_Project);
+		createColumn(Messages.Problem_Names_Dialog_Folder);
+		m_table.addListener(SWT.SetData, new Listener()
+		{
+			@Override
+			public void handleEvent (Event a_event)
+			{
+				TableItem item = (TableItem)a_event.item;
+				/*
+				 * Table.indexOf обходит все элементы таблицы, а
+				 * индекс запрошенного элемента передаётся в
+				 * событии:*/
+				int index = a_event.index;
+				item.setData(Integer.valueOf(index));
+				IProject project = m_projects[index];
+				IPath location = project.getLocation();
+				item.setText(new String[] {project.getName(), (location != null) ? location.lastSegment() : ""});
+				item.setChecked(m_ignored[index]);
+			}
+		});
+		m_table.addListener(SWT.Selection, new Listener()
+		{
+			@Override
+			public void handleEvent (Event a_event)
+			{
+				if (a_event.detail != SWT.CHECK) return;
+				TableItem item = (TableItem)a_event.item;
+				m_ignored[((Integer)item.getData()).intValue()] = item.getChecked();
+			}
+		});
+		m_table.setItemCount(m_projects.length);
+		
+		Composite buttons = new Composite(composite, SWT.NONE);
+		buttons.setLayout(new GridLayout(1, true));
+		buttons.setLayoutData(new GridData(SWT.FILL, SWT.TOP, false, false));
+		createBulkButton(buttons, Messages.Problem_Names_Dialog_Ignore, true);
+		createBulkButton(buttons, Messages.Problem_Names_Dialog_Unignore, false);
+		return composite;
+	}
+	
+	/**
+	 * Создаёт столбец таблицы.
+	 * @param a_text
+	 * 		  Заголовок столбца
+	 */
+	private void createColumn (String a_text)
+	{
+		TableColumn column = new TableColumn(m_table, SWT.LEFT);
+		column.setText(a_text);
+		column.setWidth(220);
+	}
+	
+	/**
+	 * Создаёт кнопку, заносящую выделенные проекты (или все
+	 * проекты, если ничего не выделено) в исключения или
+	 * удаляющую их из исключений.
+	 * @param a_parent
+	 * 		  Родительский элемент
+	 * @param a_text
+	 * 		  Текст кнопки
+	 * @param a_ignored
+	 * 		  Устанавливаемый признак занесения в исключения
+	 */
+	private void createBulkButton (Composite a_parent, String a_text, boolean a_ignored)
+	{
+		Button button = new Button(a_parent, SWT.PUSH);
+		button.setText(a_text);
+		button.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		button.addListener(SWT.Selection, new Listener()
+		{
+			@Override
+			public void handleEvent (Event a_event)
+			{
+				int[] indices = m_table.getSelectionIndices();
+				if (indices.length == 0)
+				{
+					for (int i = 0; i < m_ignored.length; i++) m_ignored[i] = a_ignored;
+					m_table.clearAll();
+				}
+				else
+				{
+					for (int index : indices) m_ignored[index] = a_ignored;
+					m_table.clear(indices);
+				}
+			}
+		});
+	}
+	
+	@Override
+	public void cancelPressed ()
+	{
+		/*
+		 * Как и в ProblemNameDialog, отказ означает, что
+		 * проекты не заносятся в исключения:*/
+		for (int i = 0; i < m_ignored.length; i++) m_ignored[i] = false;
+		super.cancelPressed();
+	}
+	
+	/**
+	 * @return проекты и выбранные пользователем признаки
+	 * их занесения в исключения
+	 */
+	public Map<IProject, Boolean> getDecisions ()
+	{
+		Map<IProject, Boolean> decisions = new LinkedHashMap<IProject, Boolean>();
+		for (int i = 0; i < m_projects.length; i++) decisions.put(m_projects[i], m_ignored[i]);
+		return decisions;
+	}
+}
@@ -1,89 +1,139 @@
 package org.nilsdku.eclipse.projectnamevalidator.ui;
 
+import java.util.Collections;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IWorkbenchPropertyPage;
 import org.eclipse.ui.dialogs.PropertyPage;
 import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
 import org.nilsdku.eclipse.projectnamevalidator.Messages;
 import org.nilsdku.eclipse.projectnamevalidator.ProjectValidator;
+import org.nilsdku.eclipse.projectnamevalidator.job.IgnoreListUpdateJob;
 import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
-import org.nilsdku.eclipse.projectnamevalidator.property.RenameIgnoringProperty;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+import org.nilsdku.eclipse.projectnamevalidator.property.IgnoreListStore;
 
 /**
  * Страница свойства RenameIgnoringProperty для проекта
- * в рабочем пространстве.
+ * в рабочем пространстве. Значение свойства читается и
+ * записывается через хранилище IgnoreListStore в фоновых
+ * заданиях, поэтому поток Display не ждёт обращений к
+ * диску: флажок становится доступен после чтения значения,
+ * а запись и повторная проверка проекта выполняются
+ * заданием IgnoreListUpdateJob.
  */
 public class RenameIgnoringPropertyPage extends PropertyPage implements IWorkbenchPropertyPage
 {	
 	private Button m_renameIgnoringButton;
 	
-	private RenameIgnoringProperty m_property;
+	private IProject m_project;
 	
 	@Override
 	protected Control createContents(Composite a_parent)
 	{
-		m_property = new RenameIgnoringProperty((IProject)getElement());
-		
-		m_renameIgnoringButton = new Button(a_parent, SWT.CHECK);
-		m_renameIgnoringButton.setLayoutData(new GridData(SWT.LEFT, SWT.UP, false, false));
-		m_renameIgnoringButton.setText(Messages.Property_Page_Text);
-		
+		ValidationMetrics metrics = ValidationMetrics.getInstance();
+		long startTime = metrics.start();
+		UiThreadWatchdog.getInstance().enter();
 		try
 		{
-			m_renameIgnoringButton.setSelection(m_property.getValue());
+			m_project = (IProject)getElement();
+			
+			m_renameIgnoringButton = new Button(a_parent, SWT.CHECK);
+			m_renameIgnoringButton.setLayoutData(new GridData(SWT.LEFT, SWT.UP, false, false));
+			m_renameIgnoringButton.setText(Messages.Property_Page_Text);
+			m_renameIgnoringButton.setEnabled(false);
+			scheduleRead(a_parent.getDisplay());
+			return a_parent;
 		}
-		catch (CoreException e)
+		finally
 		{
-			ErrorStatusHandler.log(e, e.getMessage());
-		}	
-		return a_parent;
+			UiThreadWatchdog.getInstance().exit();
+			metrics.record(Operation.UI_THREAD, startTime);
+		}
+	}
+	
+	/**
+	 * Запускает задание, читающее значение свойства, и
+	 * после его завершения асинхронно устанавливает флажок.
+	 * @param a_display
+	 * 		  Объект Display страницы
+	 */
+	private void scheduleRead (Display a_display)
+	{
+		Job job = new Job(Messages.Job_Ignore_List_Read)
+		{
+			@Override
+			protected IStatus run (IProgressMonitor a_monitor)
+			{
+				boolean ignored;
+				try
+				{
+					ignored = Boolean.TRUE.equals(IgnoreListStore.getInstance(m_project.getWorkspace()).get(m_project));
+				}
+				catch (CoreException e)
+				{
+					ErrorStatusHandler.log(e, e.getMessage());
+					return Status.OK_STATUS;
+				}
+				if (a_display.isDisposed()) return Status.OK_STATUS;
+				a_display.asyncExec(new Runnable()
+				{
+					@Override
+					public void run ()
+					{
+						if (m_renameIgnoringButton.isDisposed()) return;
+						m_renameIgnoringButton.setSelection(ignored);
+						m_renameIgnoringButton.setEnabled(true);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
 	}
 	
 	@Override
 	public void performDefaults ()
 	{
+		if (!m_renameIgnoringButton.isEnabled()) return;
 		m_renameIgnoringButton.setSelection(false);
-		try
-		{
-			m_property.setValue(false);
-			validateProjectName();
-		}
-		catch (CoreException e)
-		{
-			ErrorStatusHandler.log(e, e.getMessage());
-		}
+		scheduleUpdate(false);
 	}
 	
 	@Override
 	public boolean performOk ()
 	{
-		try
-		{
-			m_property.setValue(m_renameIgnoringButton.getSelection());
-			validateProjectName();
-		}
-		catch (CoreException e)
-		{
-			ErrorStatusHandler.log(e, e.getMessage());
-		}
+		/*
+		 * Пока значение не прочитано, флажок недоступен, и
+		 * его состояние не отражает значение свойства:*/
+		if (m_renameIgnoringButton.isEnabled()) scheduleUpdate(m_renameIgnoringButton.getSelection());
 		return true;
 	}
 	
 	/**
-	 * Проверяет имя проекта на идентичность имени
-	 * его папки в файловой системе.
+	 * Запускает задание, заносящее открытый проект в
+	 * исключения или удаляющее его из них и затем повторно
+	 * проверяющее имя проекта.
+	 * @param a_ignored
+	 * 		  Значение свойства RenameIgnoringProperty
 	 */
-	private void validateProjectName ()
+	private void scheduleUpdate (boolean a_ignored)
 	{
-		IProject project = (IProject)getElement();
-		if (!new ProjectValidator(project).isProjectOpen()) return;
-		ChangedNameValidator validator = new ChangedNameValidator();
-		validator.validateProjectName(project, false);
+		if (!new ProjectValidator(m_project).isProjectOpen()) return;
+		new IgnoreListUpdateJob(new ChangedNameValidator(),
+								Collections.singletonMap(m_project, Boolean.valueOf(a_ignored))).schedule();
 	}
 }
@@ -0,0 +1,161 @@
+package org.nilsdku.eclipse.projectnamevalidator.ui;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Platform;
+import org.nilsdku.eclipse.projectnamevalidator.Messages;
+import org.nilsdku.eclipse.projectnamevalidator.log.InfoStatusHandler;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Сторожевой объект, логирующий стек потока Display, если
+ * код плагина выполняется в нём дольше порога, заданного
+ * настройкой PREFERENCE_THRESHOLD. Участки кода плагина в
+ * потоке Display обрамляются вызовами enter и exit.
+ * По умолчанию объект выключен, и эти вызовы сводятся к
+ * чтению одного поля.
+ */
+public class UiThreadWatchdog
+{
+	/**
+	 * Ключ настройки, задающей порог (в миллисекундах), после
+	 * которого логируется стек потока Display. Значение 0
+	 * (по умолчанию) выключает наблюдение.
+	 */
+	public static final String PREFERENCE_THRESHOLD = "uiThreadWatchdogThreshold";
+	
+	private static final UiThreadWatchdog INSTANCE = new UiThreadWatchdog();
+	
+	private volatile long m_threshold;
+	
+	private ScheduledExecutorService m_executor;
+	
+	/**
+	 * Поток, выполняющий код плагина, или null.
+	 */
+	private volatile Thread m_thread;
+	
+	/**
+	 * Момент входа в текущий участок кода в наносекундах.
+	 */
+	private volatile long m_enterTime;
+	
+	/**
+	 * Глубина вложенности участков. Изменяется только в
+	 * потоке Display.
+	 */
+	private int m_depth;
+	
+	/**
+	 * Момент входа в участок, для которого стек уже
+	 * залогирован.
+	 */
+	private long m_reportedEnterTime;
+	
+	private UiThreadWatchdog ()
+	{
+	}
+	
+	/**
+	 * @return единственный сторожевой объект плагина
+	 */
+	public static UiThreadWatchdog getInstance ()
+	{
+		return INSTANCE;
+	}
+	
+	/**
+	 * Запускает наблюдение, если порог задан настройкой
+	 * PREFERENCE_THRESHOLD. Повторные вызовы ничего не
+	 * делают.
+	 */
+	public synchronized void start ()
+	{
+		if (m_executor != null || !Platform.isRunning()) return;
+		String bundleName = FrameworkUtil.getBundle(UiThreadWatchdog.class).getSymbolicName();
+		long threshold = Platform.getPreferencesService().getLong(bundleName, PREFERENCE_THRESHOLD, 0, null);
+		if (threshold <= 0) return;
+		m_executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread (Runnable a_runnable)
+			{
+				Thread thread = new Thread(a_runnable, bundleName + " UI thread watchdog");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		/*
+		 * Проверка с половинным периодом обнаруживает
+		 * превышение порога не позже чем через 1,5 порога:*/
+		long period = Math.max(1, threshold / 2);
+		m_executor.scheduleAtFixedRate(new Runnable()
+		{
+			@Override
+			public void run ()
+			{
+				check();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+		m_threshold = threshold;
+	}
+	
+	/**
+	 * Останавливает наблюдение.
+	 */
+	public synchronized void stop ()
+	{
+		m_threshold = 0;
+		if (m_executor == null) return;
+		m_executor.shutdownNow();
+		m_executor = null;
+	}
+	
+	/**
+	 * Отмечает вход в участок кода плагина в потоке Display.
+	 */
+	public void enter ()
+	{
+		if (m_threshold == 0) return;
+		if (m_depth++ == 0)
+		{
+			m_enterTime = System.nanoTime();
+			m_thread = Thread.currentThread();
+		}
+	}
+	
+	/**
+	 * Отмечает выход из участка кода плагина, вход в который
+	 * был отмечен методом enter.
+	 */
+	public void exit ()
+	{
+		if (m_depth == 0) return;
+		if (--m_depth == 0) m_thread = null;
+	}
+	
+	/**
+	 * Логирует стек потока, если он выполняет код плагина
+	 * дольше порога. Для каждого участка стек логируется
+	 * один раз.
+	 */
+	private void check ()
+	{
+		Thread thread = m_thread;
+		long enterTime = m_enterTime;
+		if (thread == null || enterTime == m_reportedEnterTime) return;
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enterTime);
+		if (elapsed < m_threshold) return;
+		StackTraceElement[] stack = thread.getStackTrace();
+		/*
+		 * Поток мог выйти из участка во время снятия стека:*/
+		if (m_thread != thread || m_enterTime != enterTime) return;
+		m_reportedEnterTime = enterTime;
+		Throwable sample = new Throwable(thread.getName());
+		sample.setStackTrace(stack);
+		InfoStatusHandler.log(String.format(Messages.Info_Ui_Thread_Blocked, elapsed), sample);
+	}
+}
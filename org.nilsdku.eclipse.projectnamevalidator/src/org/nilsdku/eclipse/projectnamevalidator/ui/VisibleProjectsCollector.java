@@ -0,0 +1,89 @@
+package org.nilsdku.eclipse.projectnamevalidator.ui;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.Adapters;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.ui.IPageLayout;
+import org.eclipse.ui.IViewPart;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.IWorkingSet;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.navigator.CommonNavigator;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.Operation;
+import org.nilsdku.eclipse.projectnamevalidator.metrics.ValidationMetrics;
+
+/**
+ * Класс, определяющий проекты, с которыми пользователь
+ * работает в данный момент: проекты из активных рабочих
+ * наборов и проекты, раскрытые в Project Explorer.
+ */
+public class VisibleProjectsCollector
+{
+	/**
+	 * Собирает видимые пользователю проекты. Обращение к
+	 * элементам интерфейса выполняется в потоке Display,
+	 * его длительность учитывается как Operation.UI_THREAD.
+	 * @return видимые пользователю проекты. Пустое множество,
+	 * если рабочая среда не запущена
+	 */
+	public Set<IProject> collect ()
+	{
+		Set<IProject> projects = new LinkedHashSet<IProject>();
+		if (!PlatformUI.isWorkbenchRunning()) return projects;
+		IWorkbench workbench = PlatformUI.getWorkbench();
+		workbench.getDisplay().syncExec(new Runnable()
+		{
+			@Override
+			public void run ()
+			{
+				ValidationMetrics metrics = ValidationMetrics.getInstance();
+				long startTime = metrics.start();
+				UiThreadWatchdog.getInstance().enter();
+				try
+				{
+					IWorkbenchWindow window = workbench.getActiveWorkbenchWindow();
+					IWorkbenchPage page = (window != null) ? window.getActivePage() : null;
+					if (page == null) return;
+					for (IWorkingSet workingSet : page.getWorkingSets())
+					{
+						for (IAdaptable element : workingSet.getElements()) addProject(element, projects);
+					}
+					IViewPart view = page.findView(IPageLayout.ID_PROJECT_EXPLORER);
+					if (view instanceof CommonNavigator)
+					{
+						for (Object element : ((CommonNavigator)view).getCommonViewer().getExpandedElements())
+						{
+							addProject(element, projects);
+						}
+					}
+				}
+				finally
+				{
+					UiThreadWatchdog.getInstance().exit();
+					metrics.record(Operation.UI_THREAD, startTime);
+				}
+			}
+		});
+		return projects;
+	}
+	
+	/**
+	 * Добавляет проект элемента a_element в множество
+	 * a_projects.
+	 * @param a_element
+	 * 		  Элемент рабочего набора или дерева проектов
+	 * @param a_projects
+	 * 		  Множество проектов
+	 */
+	private void addProject (Object a_element, Set<IProject> a_projects)
+	{
+		IResource resource = Adapters.adapt(a_element, IResource.class);
+		if (resource != null && resource.getProject() != null) a_projects.add(resource.getProject());
+	}
+}
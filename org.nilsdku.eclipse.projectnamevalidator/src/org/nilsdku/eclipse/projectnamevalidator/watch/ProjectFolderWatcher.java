@@ -0,0 +1,465 @@
+package org.nilsdku.eclipse.projectnamevalidator.watch;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.nilsdku.eclipse.projectnamevalidator.ChangedNameValidator;
+import org.nilsdku.eclipse.projectnamevalidator.job.ExternalRenameJob;
+import org.nilsdku.eclipse.projectnamevalidator.job.FolderWatchUpdateJob;
+import org.nilsdku.eclipse.projectnamevalidator.log.ErrorStatusHandler;
+import org.nilsdku.eclipse.projectnamevalidator.main.Startup;
+import org.nilsdku.eclipse.projectnamevalidator.scan.ProjectNameReader;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Объект, отслеживающий переименование и удаление папок
+ * открытых проектов вне среды разработки (например, из
+ * командной строки) с помощью WatchService.
+ * Наблюдение ведётся за родительскими каталогами папок
+ * проектов, по одному ключу WatchKey на каталог, независимо
+ * от количества проектов в нём. События, поступающие подряд
+ * (например, при git checkout), объединяются, после чего
+ * обновляются и повторно проверяются только проекты, папки
+ * которых изменились.
+ * Расположение проекта при переименовании его папки не
+ * меняется, поэтому удаление папки проекта сопоставляется с
+ * созданием в том же пакете событий папки, файл .project
+ * которой содержит имя этого проекта. Такой проект
+ * перенаправляется на новую папку и проверяется с выводом
+ * предупреждения; удалённая папка без пары сообщается как
+ * отсутствующая.
+ */
+public class ProjectFolderWatcher
+{
+	/**
+	 * Время (в миллисекундах) без событий, после которого
+	 * накопленные изменения обрабатываются.
+	 */
+	private static final long QUIET_PERIOD = 300;
+	
+	/**
+	 * Максимальное время (в миллисекундах) накопления
+	 * изменений при непрерывном потоке событий.
+	 */
+	private static final long MAX_COALESCE_TIME = TimeUnit.SECONDS.toMillis(5);
+	
+	private IWorkspace m_workspace;
+	
+	private ChangedNameValidator m_validator;
+	
+	private WatchService m_watchService;
+	
+	/**
+	 * Ключи наблюдения за родительскими каталогами.
+	 */
+	private Map<Path, WatchKey> m_keys = new HashMap<Path, WatchKey>();
+	
+	/**
+	 * Открытые проекты, сгруппированные по родительским
+	 * каталогам и именам папок.
+	 */
+	private Map<Path, Map<String, IProject>> m_projects = new HashMap<Path, Map<String, IProject>>();
+	
+	private IResourceChangeListener m_listener;
+	
+	private Thread m_thread;
+	
+	private FolderWatchUpdateJob m_updateJob;
+	
+	/**
+	 * Объект, читающий имена проектов из файлов .project
+	 * созданных папок. Используется только потоком обработки
+	 * событий.
+	 */
+	private ProjectNameReader m_nameReader = new ProjectNameReader();
+	
+	private IEclipsePreferences m_preferences;
+	
+	private IPreferenceChangeListener m_preferenceListener;
+	
+	private BundleContext m_bundleContext;
+	
+	private SynchronousBundleListener m_bundleListener;
+	
+	/**
+	 * Конструктор класса ProjectFolderWatcher.
+	 * @param a_workspace
+	 * 		  Рабочая область. NotNull
+	 * @param a_validator
+	 * 		  Объект, выполняющий проверку имени проекта. NotNull
+	 */
+	public ProjectFolderWatcher (IWorkspace a_workspace, ChangedNameValidator a_validator)
+	{
+		m_workspace = Objects.requireNonNull(a_workspace);
+		m_validator = Objects.requireNonNull(a_validator);
+		m_updateJob = new FolderWatchUpdateJob(this);
+	}
+	
+	/**
+	 * Запускает наблюдение, если оно не отключено настройкой
+	 * Startup.PREFERENCE_WATCH_FOLDERS, и далее запускает и
+	 * останавливает его при изменении этой настройки.
+	 * Наблюдение окончательно останавливается при остановке
+	 * плагина.
+	 * @throws IOException
+	 */
+	public synchronized void enable () throws IOException
+	{
+		if (m_preferenceListener != null) return;
+		Bundle bundle = FrameworkUtil.getBundle(ProjectFolderWatcher.class);
+		m_preferences = InstanceScope.INSTANCE.getNode(bundle.getSymbolicName());
+		m_preferenceListener = new IPreferenceChangeListener()
+		{
+			@Override
+			public void preferenceChange (PreferenceChangeEvent a_event)
+			{
+				if (!Startup.PREFERENCE_WATCH_FOLDERS.equals(a_event.getKey())) return;
+				/*
+				 * Удалённое значение означает возврат к значению
+				 * по умолчанию (true):*/
+				Object value = a_event.getNewValue();
+				if (value == null || Boolean.parseBoolean(value.toString())) startLogged();
+				else stop();
+			}
+		};
+		m_preferences.addPreferenceChangeListener(m_preferenceListener);
+		m_bundleContext = bundle.getBundleContext();
+		if (m_bundleContext != null)
+		{
+			m_bundleListener = new SynchronousBundleListener()
+			{
+				@Override
+				public void bundleChanged (BundleEvent a_event)
+				{
+					if (a_event.getType() == BundleEvent.STOPPING && a_event.getBundle() == bundle) dispose();
+				}
+			};
+			m_bundleContext.addBundleListener(m_bundleListener);
+		}
+		if (Platform.getPreferencesService().getBoolean(bundle.getSymbolicName(), Startup.PREFERENCE_WATCH_FOLDERS,
+														true, null))
+		{
+			start();
+		}
+	}
+	
+	/**
+	 * Останавливает наблюдение и перестаёт отслеживать
+	 * настройку Startup.PREFERENCE_WATCH_FOLDERS и остановку
+	 * плагина.
+	 */
+	public synchronized void dispose ()
+	{
+		if (m_preferenceListener != null)
+		{
+			m_preferences.removePreferenceChangeListener(m_preferenceListener);
+			m_preferenceListener = null;
+		}
+		if (m_bundleListener != null)
+		{
+			try
+			{
+				m_bundleContext.removeBundleListener(m_bundleListener);
+			}
+			catch (IllegalStateException e)
+			{
+				/*
+				 * Контекст плагина уже недействителен, слушатель
+				 * удалён каркасом OSGi:*/
+			}
+			m_bundleListener = null;
+		}
+		stop();
+	}
+	
+	/**
+	 * Запускает поток обработки событий и планирует
+	 * регистрацию каталогов открытых проектов заданием
+	 * FolderWatchUpdateJob. Набор каталогов обновляется тем
+	 * же заданием при добавлении, удалении, открытии,
+	 * закрытии и перемещении проектов.
+	 * @throws IOException
+	 */
+	public synchronized void start () throws IOException
+	{
+		if (m_watchService != null) return;
+		m_watchService = FileSystems.getDefault().newWatchService();
+		m_listener = createProjectListener();
+		m_workspace.addResourceChangeListener(m_listener, IResourceChangeEvent.POST_CHANGE);
+		WatchService watchService = m_watchService;
+		m_thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run ()
+			{
+				processEvents(watchService);
+			}
+		}, "Project folder watcher");
+		m_thread.setDaemon(true);
+		m_thread.start();
+		m_updateJob.schedule();
+	}
+	
+	/**
+	 * Останавливает наблюдение: закрывает WatchService,
+	 * завершая поток обработки событий, и удаляет слушатель
+	 * изменения ресурсов.
+	 */
+	public synchronized void stop ()
+	{
+		if (m_watchService == null) return;
+		m_workspace.removeResourceChangeListener(m_listener);
+		m_listener = null;
+		m_updateJob.cancel();
+		try
+		{
+			m_watchService.close();
+		}
+		catch (IOException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+		m_watchService = null;
+		m_thread.interrupt();
+		m_thread = null;
+		m_keys.clear();
+		m_projects.clear();
+	}
+	
+	/**
+	 * Вызывает start, логируя ошибку запуска.
+	 */
+	private void startLogged ()
+	{
+		try
+		{
+			start();
+		}
+		catch (IOException | UnsupportedOperationException e)
+		{
+			ErrorStatusHandler.log(e, e.getMessage());
+		}
+	}
+	
+	/**
+	 * Приводит набор наблюдаемых каталогов в соответствие с
+	 * открытыми проектами рабочей области. Вызывается
+	 * заданием FolderWatchUpdateJob.
+	 */
+	public synchronized void updateWatchedFolders ()
+	{
+		if (m_watchService == null) return;
+		m_projects.clear();
+		for (IProject project : m_workspace.getRoot().getProjects())
+		{
+			IPath location = project.getLocation();
+			if (!project.isOpen() || location == null || location.segmentCount() == 0) continue;
+			Path folder = location.toFile().toPath();
+			Path parent = folder.getParent();
+			if (parent == null) continue;
+			Map<String, IProject> folders = m_projects.get(parent);
+			if (folders == null)
+			{
+				folders = new HashMap<String, IProject>();
+				m_projects.put(parent, folders);
+			}
+			folders.put(folder.getFileName().toString(), project);
+		}
+		for (Iterator<Map.Entry<Path, WatchKey>> iterator = m_keys.entrySet().iterator(); iterator.hasNext();)
+		{
+			Map.Entry<Path, WatchKey> entry = iterator.next();
+			if (m_projects.containsKey(entry.getKey())) continue;
+			entry.getValue().cancel();
+			iterator.remove();
+		}
+		for (Path parent : m_projects.keySet())
+		{
+			if (m_keys.containsKey(parent)) continue;
+			try
+			{
+				m_keys.put(parent, parent.register(m_watchService, StandardWatchEventKinds.ENTRY_CREATE,
+												   StandardWatchEventKinds.ENTRY_DELETE));
+			}
+			catch (IOException e)
+			{
+				/*
+				 * Каталог недоступен, изменения в нём будут
+				 * обнаружены при следующем запуске:*/
+			}
+		}
+	}
+	
+	/**
+	 * Цикл обработки событий. Выполняется в отдельном потоке
+	 * до закрытия a_watchService.
+	 * @param a_watchService
+	 * 		  Служба наблюдения, созданная методом start
+	 */
+	private void processEvents (WatchService a_watchService)
+	{
+		try
+		{
+			while (true)
+			{
+				Set<IProject> projects = new LinkedHashSet<IProject>();
+				Map<IProject, Path> missingFolders = new LinkedHashMap<IProject, Path>();
+				List<Path> createdFolders = new ArrayList<Path>();
+				collectProjects(a_watchService.take(), projects, missingFolders, createdFolders);
+				long deadline = System.currentTimeMillis() + MAX_COALESCE_TIME;
+				WatchKey key;
+				while (System.currentTimeMillis() < deadline &&
+					   (key = a_watchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null)
+				{
+					collectProjects(key, projects, missingFolders, createdFolders);
+				}
+				if (projects.isEmpty()) continue;
+				new ExternalRenameJob(m_validator, projects, findRenamedFolders(missingFolders, createdFolders))
+					.schedule();
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e)
+		{
+			/*
+			 * Наблюдение остановлено:*/
+		}
+	}
+	
+	/**
+	 * Добавляет в a_projects проекты, папки которых затронуты
+	 * событиями ключа a_key, в a_missingFolders - проекты,
+	 * папки которых удалены, а в a_createdFolders - созданные
+	 * папки, не принадлежащие проектам.
+	 * @param a_key
+	 * 		  Ключ наблюдения за родительским каталогом
+	 * @param a_projects
+	 * 		  Множество затронутых проектов
+	 * @param a_missingFolders
+	 * 		  Удалённые папки проектов
+	 * @param a_createdFolders
+	 * 		  Созданные папки, не принадлежащие проектам
+	 */
+	private synchronized void collectProjects (WatchKey a_key, Set<IProject> a_projects,
+											   Map<IProject, Path> a_missingFolders, List<Path> a_createdFolders)
+	{
+		Path parent = (Path)a_key.watchable();
+		Map<String, IProject> folders = m_projects.get(parent);
+		for (WatchEvent<?> event : a_key.pollEvents())
+		{
+			if (folders == null) continue;
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+			{
+				a_projects.addAll(folders.values());
+				continue;
+			}
+			Path folder = parent.resolve((Path)event.context());
+			IProject project = folders.get(folder.getFileName().toString());
+			if (project == null)
+			{
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) a_createdFolders.add(folder);
+				continue;
+			}
+			if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) a_missingFolders.put(project, folder);
+			else a_missingFolders.remove(project);
+			a_projects.add(project);
+		}
+		if (!a_key.reset()) m_keys.remove(parent);
+	}
+	
+	/**
+	 * Сопоставляет удалённые папки проектов с созданными
+	 * папками по имени проекта в их файлах .project.
+	 * @param a_missingFolders
+	 * 		  Удалённые папки проектов
+	 * @param a_createdFolders
+	 * 		  Созданные папки, не принадлежащие проектам
+	 * @return новые папки переименованных проектов
+	 */
+	private Map<IProject, Path> findRenamedFolders (Map<IProject, Path> a_missingFolders, List<Path> a_createdFolders)
+	{
+		Map<IProject, Path> renamedFolders = new HashMap<IProject, Path>();
+		if (a_missingFolders.isEmpty()) return renamedFolders;
+		Map<String, IProject> missingProjects = new HashMap<String, IProject>();
+		for (IProject project : a_missingFolders.keySet()) missingProjects.put(project.getName(), project);
+		for (Path folder : a_createdFolders)
+		{
+			if (missingProjects.isEmpty()) break;
+			Path projectFile = folder.resolve(IProjectDescription.DESCRIPTION_FILE_NAME);
+			if (!Files.isRegularFile(projectFile)) continue;
+			try
+			{
+				IProject project = missingProjects.remove(m_nameReader.readName(projectFile));
+				if (project != null) renamedFolders.put(project, folder);
+			}
+			catch (IOException e)
+			{
+				/*
+				 * Файл недоступен или ещё записывается, папка
+				 * не сопоставляется, а проект будет сообщён как
+				 * проект с отсутствующей папкой:*/
+			}
+		}
+		return renamedFolders;
+	}
+	
+	/**
+	 * @return слушатель изменения ресурсов, планирующий
+	 * обновление набора наблюдаемых каталогов при изменении
+	 * состава или расположения открытых проектов
+	 */
+	private IResourceChangeListener createProjectListener ()
+	{
+		return new IResourceChangeListener()
+		{
+			@Override
+			public void resourceChanged (IResourceChangeEvent a_event)
+			{
+				IResourceDelta rootDelta = a_event.getDelta();
+				if (rootDelta == null) return;
+				for (IResourceDelta delta : rootDelta.getAffectedChildren())
+				{
+					if (delta.getResource().getType() != IResource.PROJECT) continue;
+					if (delta.getKind() != IResourceDelta.CHANGED ||
+						(delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0)
+					{
+						m_updateJob.schedule();
+						return;
+					}
+				}
+			}
+		};
+	}
+}